@@ -0,0 +1,110 @@
+package com.aichatbot.benchmark;
+
+import com.aichatbot.model.DocumentEmbedding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic documentation corpus for benchmarks.
+ * - Markdown-like chunks built from a fixed technical vocabulary with a Zipf-like word distribution,
+ *   so common terms are frequent and topic terms are rare, as in real documentation
+ * - Files live under docs/<topic>/ with a few chunks each; the same seed always yields the same corpus
+ * - Queries mix topic words and common words the way chat questions do
+ */
+public final class SyntheticCorpus {
+
+    public static final String OWNER = "bench";
+    public static final String REPOSITORY = "docs";
+    public static final String BRANCH = "main";
+
+    private static final String[] TOPICS = {
+            "openshift", "kubernetes", "operator", "ingress", "storage", "network", "registry", "pipeline",
+            "monitoring", "logging", "backup", "upgrade", "security", "certificate", "cluster", "node",
+            "database", "cache", "gateway", "identity", "quota", "scheduler", "volume", "helm"
+    };
+
+    private static final String[] COMMON = {
+            "the", "to", "and", "a", "of", "in", "is", "for", "you", "with", "on", "this", "that", "be", "by",
+            "install", "configure", "create", "run", "use", "set", "check", "verify", "update", "delete",
+            "command", "file", "service", "pod", "namespace", "config", "version", "step", "user", "access",
+            "example", "output", "default", "value", "option", "required", "following", "server", "client"
+    };
+
+    private static final int CHUNKS_PER_FILE = 4;
+    private static final int WORDS_PER_CHUNK = 90;
+
+    private SyntheticCorpus() {
+    }
+
+    /**
+     * count chunks, CHUNKS_PER_FILE per file, with ids, paths and chunk indexes set (no vectors).
+     */
+    public static List<DocumentEmbedding> chunks(int count, long seed) {
+        Random random = new Random(seed);
+        List<DocumentEmbedding> chunks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int file = i / CHUNKS_PER_FILE;
+            DocumentEmbedding chunk = new DocumentEmbedding();
+            chunk.setId("chunk-" + i);
+            chunk.setFilePath(filePath(file));
+            chunk.setRepositoryOwner(OWNER);
+            chunk.setRepositoryName(REPOSITORY);
+            chunk.setBranchName(BRANCH);
+            chunk.setChunkIndex(i % CHUNKS_PER_FILE);
+            chunk.setFileHash(Integer.toHexString(file));
+            chunk.setContentChunk(text(random, TOPICS[file % TOPICS.length], WORDS_PER_CHUNK));
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    public static String filePath(int file) {
+        String topic = TOPICS[file % TOPICS.length];
+        return "docs/" + topic + "/" + topic + "-guide-" + file + ".md";
+    }
+
+    /**
+     * A whole document of the given number of paragraphs (input for chunking).
+     */
+    public static String document(int paragraphs, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < paragraphs; i++) {
+            if (i > 0) sb.append("\n\n");
+            sb.append(text(random, TOPICS[i % TOPICS.length], 20 + random.nextInt(120)));
+        }
+        return sb.toString();
+    }
+
+    public static String[] queries(int count, long seed) {
+        Random random = new Random(seed);
+        String[] queries = new String[count];
+        for (int i = 0; i < count; i++) {
+            String topic = TOPICS[random.nextInt(TOPICS.length)];
+            String other = TOPICS[random.nextInt(TOPICS.length)];
+            queries[i] = "how to " + COMMON[15 + random.nextInt(10)] + " " + topic + " " + other + " " + common(random);
+        }
+        return queries;
+    }
+
+    private static String text(Random random, String topic, int words) {
+        StringBuilder sb = new StringBuilder(words * 8);
+        sb.append("## ").append(topic).append(' ').append(common(random)).append('\n');
+        for (int w = 0; w < words; w++) {
+            int roll = random.nextInt(100);
+            String word = roll < 8 ? topic : roll < 12 ? TOPICS[random.nextInt(TOPICS.length)] : common(random);
+            sb.append(word);
+            sb.append(w % 15 == 14 ? ".\n" : " ");
+        }
+        sb.append("\n`oc get ").append(topic).append(" -n ").append(common(random)).append('`');
+        return sb.toString();
+    }
+
+    // Zipf-like: low indexes are much more frequent
+    private static String common(Random random) {
+        double u = random.nextDouble();
+        return COMMON[(int) (COMMON.length * u * u * u)];
+    }
+}
@@ -0,0 +1,104 @@
+package com.aichatbot.repository;
+
+import com.aichatbot.benchmark.SyntheticCorpus;
+import com.aichatbot.model.DocumentEmbedding;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FileEmbeddingStore persistence over a store already holding 10k / 100k / 1M chunks.
+ * - load: open the store from disk (segment plus journal replay), as at startup
+ * - save: re-index one batch of files (overwriting its chunks) until it is durable (fsync=batch)
+ * - delete: drop the same batch of files again
+ * 1M chunks needs a larger heap: -jvmArgsAppend -Xmx12g
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FileEmbeddingStoreBenchmark {
+
+    // Chunks re-saved / deleted per operation (one typical re-indexing batch)
+    private static final int BATCH = 1000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int chunks;
+
+    private Path dir;
+    private FileEmbeddingStore store;
+    private List<DocumentEmbedding> batch;
+    private Set<String> batchFiles;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jmh-store");
+        List<DocumentEmbedding> corpus = SyntheticCorpus.chunks(chunks, 42);
+        try (FileEmbeddingStore initial = new FileEmbeddingStore(dir, EmbeddingJournal.FsyncPolicy.NONE, 1000, 4096)) {
+            initial.saveAllAsync(corpus).join();
+        }
+        // Reopen so the corpus sits in the compacted segment, as after a restart
+        store = new FileEmbeddingStore(dir);
+
+        batch = new ArrayList<>(corpus.subList(0, Math.min(BATCH, corpus.size())));
+        batchFiles = new LinkedHashSet<>();
+        batch.forEach(chunk -> batchFiles.add(chunk.getFilePath()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    /**
+     * Puts the batch back before each delete so every invocation removes the same chunks.
+     */
+    @State(Scope.Benchmark)
+    public static class BatchPresent {
+        @Setup(Level.Invocation)
+        public void restore(FileEmbeddingStoreBenchmark benchmark) {
+            benchmark.store.saveAllAsync(benchmark.batch).join();
+        }
+    }
+
+    @Benchmark
+    public long load() {
+        store.close();
+        store = new FileEmbeddingStore(dir);
+        return store.count();
+    }
+
+    @Benchmark
+    public void save() {
+        store.saveAllAsync(batch).join();
+    }
+
+    @Benchmark
+    public long delete(BatchPresent present) {
+        store.deleteByFilePaths(SyntheticCorpus.OWNER, SyntheticCorpus.REPOSITORY, batchFiles);
+        return store.count();
+    }
+}
@@ -0,0 +1,81 @@
+package com.aichatbot.repository;
+
+import com.aichatbot.benchmark.SyntheticCorpus;
+import com.aichatbot.model.DocumentEmbedding;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSONL line format of the embedding journal: one chunk (with a 768-dim vector) per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonlCodecBenchmark {
+
+    private static final int SAMPLES = 256;
+    private static final int DIMENSIONS = 768;
+
+    private Path dir;
+    private FileEmbeddingStore store;
+    private DocumentEmbedding[] chunks;
+    private String[] lines;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jmh-jsonl");
+        store = new FileEmbeddingStore(dir);
+        List<DocumentEmbedding> corpus = SyntheticCorpus.chunks(SAMPLES, 42);
+        Random random = new Random(3);
+        chunks = new DocumentEmbedding[SAMPLES];
+        lines = new String[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            float[] vector = new float[DIMENSIONS];
+            for (int d = 0; d < DIMENSIONS; d++) vector[d] = (float) random.nextGaussian();
+            DocumentEmbedding chunk = corpus.get(i);
+            chunk.setVector(vector);
+            chunks[i] = chunk;
+            lines[i] = store.serialize(chunk);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public String serialize() {
+        next = (next + 1) % SAMPLES;
+        return store.serialize(chunks[next]);
+    }
+
+    @Benchmark
+    public DocumentEmbedding deserialize() {
+        next = (next + 1) % SAMPLES;
+        return store.deserialize(lines[next]);
+    }
+}
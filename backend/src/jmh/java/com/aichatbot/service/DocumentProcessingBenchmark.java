@@ -0,0 +1,111 @@
+package com.aichatbot.service;
+
+import com.aichatbot.benchmark.SyntheticCorpus;
+import com.aichatbot.config.AppExecutors;
+import com.aichatbot.model.DocumentEmbedding;
+import com.aichatbot.repository.EmbeddingJournal;
+import com.aichatbot.repository.FileEmbeddingStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retrieval over a synthetic corpus of 10k / 100k / 1M chunks, wired the way the application does
+ * (BM25 scorer, parallel scoring, vectors disabled so no Ollama is needed).
+ * 1M chunks needs a larger heap: -jvmArgsAppend -Xmx12g
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DocumentProcessingBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int chunks;
+
+    private Path dir;
+    private FileEmbeddingStore store;
+    private SearchExecutor searchExecutor;
+    private AppExecutors executors;
+    private DocumentProcessingService service;
+    private String[] queries;
+    private String document;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("jmh-retrieval");
+        store = new FileEmbeddingStore(dir, EmbeddingJournal.FsyncPolicy.NONE, 1000, 4096);
+        List<DocumentEmbedding> corpus = SyntheticCorpus.chunks(chunks, 42);
+        corpus.forEach(DocumentEmbedding::getNormalized);
+        store.saveAllAsync(corpus).join();
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        searchExecutor = new SearchExecutor(0, 2048, registry);
+        executors = new AppExecutors(new StandardEnvironment(), registry);
+        // Vectors are off (rag.vectors.enabled is only set by Spring), so retrieval stays lexical
+        OllamaEmbeddingService embeddings = new OllamaEmbeddingService(HttpClient.newHttpClient(), new ObjectMapper());
+        Bm25Scorer bm25 = new Bm25Scorer(store, 1.2, 0.75, 0.5, 1.0, 2.0);
+        service = new DocumentProcessingService(store, embeddings, bm25, searchExecutor, executors, registry, "bm25");
+
+        queries = SyntheticCorpus.queries(64, 7);
+        document = SyntheticCorpus.document(400, 11);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        searchExecutor.shutdown();
+        executors.shutdown();
+        store.close();
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    private String nextQuery() {
+        next = (next + 1) % queries.length;
+        return queries[next];
+    }
+
+    @Benchmark
+    public List<DocumentEmbedding> findRelevantChunks() {
+        return service.findRelevantChunks(nextQuery(), 10);
+    }
+
+    @Benchmark
+    public List<DocumentEmbedding> findBestMatchingFile() {
+        return service.findBestMatchingFile(nextQuery());
+    }
+
+    @Benchmark
+    public List<DocumentEmbedding> findRelevantChunksByKeywords() {
+        return service.findRelevantChunksByKeywords(nextQuery(), 10);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<String> splitIntoChunks() {
+        return service.splitIntoChunks(document, 3000);
+    }
+}
@@ -0,0 +1,67 @@
+package com.aichatbot.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Heap and GC activity of this JVM (application, stubs and load generator alike) over a phase.
+ * - Heap peak is the sum of the heap pools' peak usage since the phase started
+ * - GC counts and times are deltas per collector
+ */
+final class JvmStats {
+
+    private final Map<String, long[]> gcAtStart = new LinkedHashMap<>();
+    private long heapUsedAtStart;
+
+    static JvmStats begin() {
+        JvmStats stats = new JvmStats();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            stats.gcAtStart.put(gc.getName(), new long[]{gc.getCollectionCount(), gc.getCollectionTime()});
+        }
+        stats.heapUsedAtStart = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        return stats;
+    }
+
+    Map<String, Object> end() {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+
+        Map<String, Object> gcs = new LinkedHashMap<>();
+        long totalCount = 0;
+        long totalTime = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long[] start = gcAtStart.getOrDefault(gc.getName(), new long[]{0, 0});
+            long count = gc.getCollectionCount() - start[0];
+            long time = gc.getCollectionTime() - start[1];
+            totalCount += count;
+            totalTime += time;
+            gcs.put(gc.getName(), Map.of("collections", count, "timeMs", time));
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("heapUsedStartMb", mb(heapUsedAtStart));
+        summary.put("heapUsedEndMb", mb(heap.getUsed()));
+        summary.put("heapPeakMb", mb(peak));
+        summary.put("heapCommittedMb", mb(heap.getCommitted()));
+        summary.put("heapMaxMb", mb(heap.getMax()));
+        summary.put("gcCollections", totalCount);
+        summary.put("gcTimeMs", totalTime);
+        summary.put("collectors", gcs);
+        return summary;
+    }
+
+    private static long mb(long bytes) {
+        return bytes < 0 ? -1 : bytes / (1024 * 1024);
+    }
+}
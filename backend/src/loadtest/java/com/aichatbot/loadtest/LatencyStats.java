@@ -0,0 +1,67 @@
+package com.aichatbot.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencies and outcomes of one workload phase.
+ * Percentiles are exact (nearest rank over all recorded samples).
+ */
+final class LatencyStats {
+
+    private long[] samples = new long[1024];
+    private int count;
+    private final Map<String, Integer> outcomes = new TreeMap<>();
+    private long startNanos;
+    private long endNanos;
+
+    synchronized void start() {
+        startNanos = System.nanoTime();
+    }
+
+    synchronized void stop() {
+        endNanos = System.nanoTime();
+    }
+
+    synchronized void record(long nanos, String outcome) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+        outcomes.merge(outcome, 1, Integer::sum);
+    }
+
+    synchronized Map<String, Object> summary() {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        double seconds = (endNanos - startNanos) / 1e9;
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", count);
+        summary.put("outcomes", new TreeMap<>(outcomes));
+        summary.put("durationSeconds", round(seconds));
+        summary.put("throughputPerSecond", round(seconds > 0 ? count / seconds : 0));
+        summary.put("p50Ms", millis(percentile(sorted, 0.50)));
+        summary.put("p95Ms", millis(percentile(sorted, 0.95)));
+        summary.put("p99Ms", millis(percentile(sorted, 0.99)));
+        summary.put("maxMs", millis(count == 0 ? 0 : sorted[count - 1]));
+        summary.put("meanMs", millis(count == 0 ? 0 : (long) Arrays.stream(sorted).average().orElse(0)));
+        return summary;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return round(nanos / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
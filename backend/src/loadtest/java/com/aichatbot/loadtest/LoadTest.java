@@ -0,0 +1,274 @@
+package com.aichatbot.loadtest;
+
+import com.aichatbot.AiChatbotApplication;
+import com.aichatbot.repository.EmbeddingStore;
+import com.aichatbot.service.RAGService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end load test of the backend against in-process stub GitHub and Ollama servers.
+ * - initial-index: the startup indexing run over the stub repository
+ * - chat: concurrent POST /api/chat/message clients (after a warmup)
+ * - reindex: forced POST /api/admin/reindex runs, with chat traffic alongside (chat-during-reindex)
+ * Each phase reports p50/p95/p99 latency, throughput, heap and GC activity; the report is also
+ * written as JSON (--out) for comparison between releases.
+ */
+public final class LoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final String[] VERBS = {"install", "configure", "create", "verify", "update", "delete"};
+
+    private final LoadTestOptions options;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger questionSequence = new AtomicInteger();
+    private String baseUrl;
+
+    private LoadTest(LoadTestOptions options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = new LoadTestOptions(args);
+        Map<String, Object> report = new LoadTest(options).run();
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        Path out = Path.of(options.get("out"));
+        if (out.getParent() != null) Files.createDirectories(out.getParent());
+        objectMapper.writeValue(out.toFile(), report);
+        System.out.println(objectMapper.writeValueAsString(report.get("phases")));
+        System.out.println("Load test report written to " + out.toAbsolutePath());
+        System.exit(0);
+    }
+
+    private Map<String, Object> run() throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("options", options.asMap());
+        report.put("appArgs", options.getAppArgs());
+        report.put("environment", Map.of(
+                "java", System.getProperty("java.version"),
+                "processors", Runtime.getRuntime().availableProcessors()));
+        Map<String, Object> phases = new LinkedHashMap<>();
+        report.put("phases", phases);
+
+        Path storeDir = Files.createTempDirectory("loadtest-embeddings");
+        try (StubGitHubServer github = new StubGitHubServer(options.getInt("files"), options.getInt("file-kb"),
+                     options.getInt("github-latency-ms"));
+             StubOllamaServer ollama = new StubOllamaServer(options.getInt("ollama-first-token-ms"),
+                     options.getInt("ollama-tokens"), options.getDouble("ollama-tokens-per-second"),
+                     options.getInt("embedding-latency-ms"))) {
+
+            JvmStats startupJvm = JvmStats.begin();
+            long startupBegin = System.nanoTime();
+            ConfigurableApplicationContext context = startApplication(github, ollama, storeDir);
+            long ready = System.nanoTime();
+            RAGService ragService = context.getBean(RAGService.class);
+            EmbeddingStore embeddingStore = context.getBean(EmbeddingStore.class);
+            try {
+                // The scheduled indexing run starts with the application
+                awaitIndexing(ragService, 0);
+                Map<String, Object> initial = new LinkedHashMap<>();
+                initial.put("startupSeconds", seconds(ready - startupBegin));
+                initial.put("indexedAfterStartupSeconds", seconds(System.nanoTime() - ready));
+                initial.put("files", github.getFileCount());
+                initial.put("chunks", embeddingStore.count());
+                initial.put("githubRequests", github.getRequestCount());
+                initial.put("embeddingRequests", ollama.getEmbeddingCount());
+                initial.put("jvm", startupJvm.end());
+                phases.put("initial-index", initial);
+                logger.info("Initial index: {}", initial);
+
+                runChat(options.getInt("warmup"), options.getInt("clients"), null);
+
+                JvmStats chatJvm = JvmStats.begin();
+                long generationsBefore = ollama.getGenerationCount();
+                LatencyStats chat = runChat(options.getInt("requests"), options.getInt("clients"), null);
+                Map<String, Object> chatPhase = chat.summary();
+                chatPhase.put("ollamaGenerations", ollama.getGenerationCount() - generationsBefore);
+                chatPhase.put("jvm", chatJvm.end());
+                phases.put("chat", chatPhase);
+                logger.info("Chat: {}", chatPhase);
+
+                phases.put("reindex", runReindex(ragService, embeddingStore, phases));
+            } finally {
+                context.close();
+            }
+        } finally {
+            FileSystemUtils.deleteRecursively(storeDir);
+        }
+        return report;
+    }
+
+    private ConfigurableApplicationContext startApplication(StubGitHubServer github, StubOllamaServer ollama, Path storeDir) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.ai.ollama.base-url=" + ollama.getBaseUrl(),
+                "--repo.github.baseurl=" + github.getBaseUrl(),
+                "--repo.github.token=loadtest",
+                "--repo.github.repositories[0].owner=" + StubGitHubServer.OWNER,
+                "--repo.github.repositories[0].name=" + StubGitHubServer.REPOSITORY,
+                "--repo.github.repositories[0].branch=" + StubGitHubServer.BRANCH,
+                "--embedding.store.dir=" + storeDir,
+                // The stub has no budget to protect; pacing would only measure the limiter
+                "--rate.limiting.requests-per-minute=0",
+                // Per-request INFO logging would dominate the numbers; the harness keeps its progress lines
+                "--logging.level.com.aichatbot=WARN",
+                "--logging.level.com.aichatbot.loadtest=INFO",
+                "--spring.main.banner-mode=off"));
+        args.addAll(options.getAppArgs());
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(AiChatbotApplication.class)
+                .run(args.toArray(new String[0]));
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "");
+        baseUrl = "http://127.0.0.1:" + port + contextPath;
+        logger.info("Application started at {} (GitHub stub {}, Ollama stub {})", baseUrl, github.getBaseUrl(), ollama.getBaseUrl());
+        return context;
+    }
+
+    /**
+     * Forced reindex runs; chat clients keep asking while each run is in progress.
+     */
+    private Map<String, Object> runReindex(RAGService ragService, EmbeddingStore embeddingStore,
+                                           Map<String, Object> phases) throws Exception {
+        int runs = options.getInt("reindex-runs");
+        int mixedRequests = options.getInt("mixed-requests");
+        LatencyStats reindex = new LatencyStats();
+        LatencyStats chatDuringReindex = new LatencyStats();
+        JvmStats jvm = JvmStats.begin();
+        ExecutorService background = Executors.newSingleThreadExecutor();
+        try {
+            reindex.start();
+            chatDuringReindex.start();
+            for (int run = 0; run < runs; run++) {
+                long lastIndexTime = ragService.getLastIndexTime();
+                var chat = mixedRequests > 0
+                        ? background.submit(() -> runChat(mixedRequests, options.getInt("clients"), chatDuringReindex))
+                        : null;
+
+                long start = System.nanoTime();
+                HttpResponse<String> response = post("/admin/reindex", "");
+                awaitIndexing(ragService, lastIndexTime);
+                boolean completed = ragService.getLastIndexTime() != lastIndexTime;
+                reindex.record(System.nanoTime() - start, completed ? String.valueOf(response.statusCode()) : "failed");
+                logger.info("Reindex run {} finished in {} ms ({} chunks)", run + 1,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), embeddingStore.count());
+                if (chat != null) chat.get();
+            }
+            reindex.stop();
+            chatDuringReindex.stop();
+        } finally {
+            background.shutdownNow();
+        }
+        Map<String, Object> summary = reindex.summary();
+        summary.put("chunks", embeddingStore.count());
+        summary.put("jvm", jvm.end());
+        if (mixedRequests > 0) {
+            phases.put("chat-during-reindex", chatDuringReindex.summary());
+        }
+        return summary;
+    }
+
+    /**
+     * Send requests chat messages from clients concurrent clients; records into stats (new when null).
+     */
+    private LatencyStats runChat(int requests, int clients, LatencyStats stats) throws InterruptedException {
+        LatencyStats recorded = stats != null ? stats : new LatencyStats();
+        if (requests <= 0) return recorded;
+        AtomicInteger remaining = new AtomicInteger(requests);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, clients));
+        if (stats == null) recorded.start();
+        for (int c = 0; c < clients; c++) {
+            int clientId = c;
+            pool.execute(() -> {
+                Random random = new Random(clientId);
+                while (remaining.getAndDecrement() > 0) {
+                    long start = System.nanoTime();
+                    String outcome;
+                    try {
+                        outcome = String.valueOf(post("/chat/message", chatBody(random, clientId)).statusCode());
+                    } catch (Exception e) {
+                        outcome = "error:" + e.getClass().getSimpleName();
+                    }
+                    recorded.record(System.nanoTime() - start, outcome);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.HOURS);
+        if (stats == null) recorded.stop();
+        return recorded;
+    }
+
+    private String chatBody(Random random, int clientId) throws Exception {
+        String topic = StubGitHubServer.TOPICS[random.nextInt(StubGitHubServer.TOPICS.length)];
+        String other = StubGitHubServer.TOPICS[random.nextInt(StubGitHubServer.TOPICS.length)];
+        String question = "how to " + VERBS[random.nextInt(VERBS.length)] + " " + topic + " with " + other;
+        if (options.getBoolean("distinct")) {
+            // Unique text defeats the answer cache and request coalescing
+            question += " case " + questionSequence.incrementAndGet();
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("message", question);
+        body.put("sessionId", "loadtest-" + clientId);
+        body.put("fastMode", random.nextDouble() < options.getDouble("fast-ratio"));
+        return objectMapper.writeValueAsString(body);
+    }
+
+    private HttpResponse<String> post(String path, String json) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofMinutes(10))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static double seconds(long nanos) {
+        return Math.round(nanos / 1e7) / 100.0;
+    }
+
+    // Wait until an indexing run that started after lastIndexTime has finished (or failed)
+    private static void awaitIndexing(RAGService ragService, long lastIndexTime) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(60);
+        boolean seenRunning = false;
+        while (System.nanoTime() < deadline) {
+            boolean running = ragService.isIndexingInProgress();
+            seenRunning |= running;
+            if (!running && (ragService.getLastIndexTime() != lastIndexTime || seenRunning)) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new IllegalStateException("Indexing did not finish within 60 minutes");
+    }
+}
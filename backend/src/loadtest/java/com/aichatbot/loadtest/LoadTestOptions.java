@@ -0,0 +1,73 @@
+package com.aichatbot.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options of the load test, as --name=value.
+ * - Unknown names are rejected so typos do not silently fall back to defaults
+ * - --app.<property>=<value> is passed to the application as --<property>=<value>
+ */
+final class LoadTestOptions {
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        // Chat workload
+        DEFAULTS.put("clients", "8");
+        DEFAULTS.put("requests", "100");
+        DEFAULTS.put("warmup", "10");
+        DEFAULTS.put("fast-ratio", "0.5");
+        DEFAULTS.put("distinct", "true");
+        // Reindex workload (forced full reindex runs, chat keeps running alongside when mixed)
+        DEFAULTS.put("reindex-runs", "2");
+        DEFAULTS.put("mixed-requests", "40");
+        // Stub GitHub
+        DEFAULTS.put("files", "300");
+        DEFAULTS.put("file-kb", "8");
+        DEFAULTS.put("github-latency-ms", "20");
+        // Stub Ollama
+        DEFAULTS.put("ollama-first-token-ms", "200");
+        DEFAULTS.put("ollama-tokens", "60");
+        DEFAULTS.put("ollama-tokens-per-second", "100");
+        DEFAULTS.put("embedding-latency-ms", "5");
+        // Report
+        DEFAULTS.put("out", "target/loadtest.json");
+    }
+
+    private final Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+    private final List<String> appArgs = new ArrayList<>();
+
+    LoadTestOptions(String[] args) {
+        for (String arg : args) {
+            if (arg.isBlank()) continue;
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (name.startsWith("app.")) {
+                appArgs.add("--" + name.substring(4) + "=" + value);
+            } else if (DEFAULTS.containsKey(name)) {
+                values.put(name, value);
+            } else {
+                throw new IllegalArgumentException("Unknown option --" + name + " (known: " + DEFAULTS.keySet() + ")");
+            }
+        }
+    }
+
+    int getInt(String name) { return Integer.parseInt(values.get(name)); }
+
+    double getDouble(String name) { return Double.parseDouble(values.get(name)); }
+
+    boolean getBoolean(String name) { return Boolean.parseBoolean(values.get(name)); }
+
+    String get(String name) { return values.get(name); }
+
+    /** Extra application properties (--app.*) */
+    List<String> getAppArgs() { return appArgs; }
+
+    Map<String, String> asMap() { return values; }
+}
@@ -0,0 +1,269 @@
+package com.aichatbot.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the GitHub (Enterprise) REST API of one repository.
+ * - git/trees (recursive), contents (directories and files, base64) and tarball endpoints
+ * - A deterministic markdown corpus of the requested size under docs/<topic>/
+ * - Fixed latency per request and X-RateLimit-* headers with a generous budget
+ */
+final class StubGitHubServer implements AutoCloseable {
+
+    static final String OWNER = "loadtest";
+    static final String REPOSITORY = "docs";
+    static final String BRANCH = "main";
+
+    static final String[] TOPICS = {
+            "openshift", "kubernetes", "operator", "ingress", "storage", "network", "registry", "pipeline",
+            "monitoring", "logging", "backup", "upgrade", "security", "certificate", "cluster", "database"
+    };
+
+    private static final String[] WORDS = {
+            "install", "configure", "create", "verify", "update", "delete", "command", "service", "pod",
+            "namespace", "config", "version", "step", "user", "access", "example", "output", "default",
+            "value", "option", "required", "server", "client", "the", "to", "and", "of", "in", "for", "with"
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, byte[]> files = new TreeMap<>();
+    private final Map<String, String> shas = new TreeMap<>();
+    private final long latencyMs;
+    private final AtomicLong requests = new AtomicLong();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private volatile byte[] tarball;
+
+    StubGitHubServer(int fileCount, int fileKb, long latencyMs) throws IOException {
+        this.latencyMs = latencyMs;
+        Random random = new Random(42);
+        for (int i = 0; i < fileCount; i++) {
+            String topic = TOPICS[i % TOPICS.length];
+            String path = "docs/" + topic + "/" + topic + "-guide-" + i + ".md";
+            byte[] content = markdown(random, topic, fileKb * 1024).getBytes(StandardCharsets.UTF_8);
+            files.put(path, content);
+            shas.put(path, sha1(content));
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    long getRequestCount() {
+        return requests.get();
+    }
+
+    int getFileCount() {
+        return files.size();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            long count = requests.incrementAndGet();
+            sleep(latencyMs);
+            exchange.getResponseHeaders().add("X-RateLimit-Limit", "5000");
+            exchange.getResponseHeaders().add("X-RateLimit-Remaining", String.valueOf(Math.max(1000, 5000 - count % 4000)));
+            exchange.getResponseHeaders().add("X-RateLimit-Reset",
+                    String.valueOf(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + 3600));
+
+            String prefix = "/repos/" + OWNER + "/" + REPOSITORY + "/";
+            String path = exchange.getRequestURI().getPath();
+            if (!path.startsWith(prefix)) {
+                send(exchange, 404, "application/json", "{\"message\":\"Not Found\"}".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            String rest = URLDecoder.decode(path.substring(prefix.length()), StandardCharsets.UTF_8);
+            if (rest.startsWith("git/trees/")) {
+                send(exchange, 200, "application/json", objectMapper.writeValueAsBytes(tree()));
+            } else if (rest.startsWith("contents")) {
+                String target = rest.length() > "contents".length() ? rest.substring("contents/".length()) : "";
+                contents(exchange, target);
+            } else if (rest.startsWith("tarball/")) {
+                send(exchange, 200, "application/x-gzip", tarball());
+            } else {
+                send(exchange, 404, "application/json", "{\"message\":\"Not Found\"}".getBytes(StandardCharsets.UTF_8));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private ObjectNode tree() {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("sha", "root");
+        root.put("truncated", false);
+        ArrayNode items = root.putArray("tree");
+        for (String dir : directories()) {
+            items.addObject().put("path", dir).put("type", "tree").put("sha", sha1(dir.getBytes(StandardCharsets.UTF_8)));
+        }
+        files.forEach((path, content) -> items.addObject()
+                .put("path", path).put("type", "blob").put("sha", shas.get(path)).put("size", content.length));
+        return root;
+    }
+
+    private void contents(HttpExchange exchange, String target) throws IOException {
+        String dir = target.endsWith("/") ? target.substring(0, target.length() - 1) : target;
+        byte[] content = files.get(dir);
+        if (content != null) {
+            ObjectNode file = objectMapper.createObjectNode();
+            file.put("name", dir.substring(dir.lastIndexOf('/') + 1));
+            file.put("path", dir);
+            file.put("type", "file");
+            file.put("sha", shas.get(dir));
+            file.put("size", content.length);
+            file.put("encoding", "base64");
+            file.put("content", Base64.getMimeEncoder().encodeToString(content));
+            send(exchange, 200, "application/json", objectMapper.writeValueAsBytes(file));
+            return;
+        }
+
+        // Directory listing: direct children only
+        String prefix = dir.isEmpty() ? "" : dir + "/";
+        Map<String, ObjectNode> children = new TreeMap<>();
+        for (String subdir : directories()) {
+            if (subdir.startsWith(prefix) && subdir.indexOf('/', prefix.length()) < 0 && !subdir.equals(dir)) {
+                children.put(subdir, entry(subdir, "dir", 0));
+            }
+        }
+        files.forEach((path, bytes) -> {
+            if (path.startsWith(prefix) && path.indexOf('/', prefix.length()) < 0) {
+                children.put(path, entry(path, "file", bytes.length));
+            }
+        });
+        if (children.isEmpty()) {
+            send(exchange, 404, "application/json", "{\"message\":\"Not Found\"}".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        ArrayNode listing = objectMapper.createArrayNode();
+        children.values().forEach(listing::add);
+        send(exchange, 200, "application/json", objectMapper.writeValueAsBytes(listing));
+    }
+
+    private ObjectNode entry(String path, String type, long size) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("name", path.substring(path.lastIndexOf('/') + 1));
+        node.put("path", path);
+        node.put("type", type);
+        node.put("sha", "file".equals(type) ? shas.get(path) : sha1(path.getBytes(StandardCharsets.UTF_8)));
+        node.put("size", size);
+        return node;
+    }
+
+    private TreeSet<String> directories() {
+        TreeSet<String> dirs = new TreeSet<>();
+        for (String path : files.keySet()) {
+            for (int slash = path.indexOf('/'); slash > 0; slash = path.indexOf('/', slash + 1)) {
+                dirs.add(path.substring(0, slash));
+            }
+        }
+        return dirs;
+    }
+
+    private byte[] tarball() throws IOException {
+        byte[] cached = tarball;
+        if (cached != null) {
+            return cached;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GzipCompressorOutputStream(bytes))) {
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            String root = OWNER + "-" + REPOSITORY + "-0000000/";
+            tar.putArchiveEntry(new TarArchiveEntry(root));
+            tar.closeArchiveEntry();
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                TarArchiveEntry entry = new TarArchiveEntry(root + file.getKey());
+                entry.setSize(file.getValue().length);
+                tar.putArchiveEntry(entry);
+                tar.write(file.getValue());
+                tar.closeArchiveEntry();
+            }
+        }
+        tarball = bytes.toByteArray();
+        return tarball;
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String markdown(Random random, String topic, int targetBytes) {
+        StringBuilder sb = new StringBuilder(targetBytes + 256);
+        sb.append("# ").append(topic).append(" guide\n\n");
+        int section = 0;
+        while (sb.length() < targetBytes) {
+            sb.append("## ").append(WORDS[random.nextInt(WORDS.length)]).append(' ').append(topic)
+                    .append(' ').append(++section).append("\n\n");
+            int sentences = 3 + random.nextInt(6);
+            for (int s = 0; s < sentences; s++) {
+                int words = 6 + random.nextInt(12);
+                for (int w = 0; w < words; w++) {
+                    String word = random.nextInt(10) == 0 ? TOPICS[random.nextInt(TOPICS.length)] : WORDS[random.nextInt(WORDS.length)];
+                    sb.append(w == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word).append(' ');
+                }
+                sb.setLength(sb.length() - 1);
+                sb.append(". ");
+            }
+            sb.append("\n\n```\noc get ").append(topic).append(" -n ").append(WORDS[random.nextInt(WORDS.length)]).append("\n```\n\n");
+        }
+        return sb.toString();
+    }
+
+    private static String sha1(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void sleep(long millis) {
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
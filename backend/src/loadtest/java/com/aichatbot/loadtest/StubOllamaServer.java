@@ -0,0 +1,162 @@
+package com.aichatbot.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for Ollama.
+ * - /api/generate, blocking or NDJSON streaming: waits firstTokenMs (prompt evaluation), then emits
+ *   the configured number of tokens at tokensPerSecond, with Ollama's timing fields on the final object
+ * - /api/embeddings: deterministic hashed bag-of-words vectors, so hybrid search has real signal
+ * - /api/tags: lists the model, for health checks
+ */
+final class StubOllamaServer implements AutoCloseable {
+
+    private static final int DIMENSIONS = 64;
+    private static final String[] TOKENS = {
+            "To", " configure", " the", " operator", ",", " run", " the", " following", " command", ".",
+            " Then", " verify", " that", " the", " pod", " is", " running", " in", " the", " namespace", "."
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final long firstTokenMs;
+    private final int tokens;
+    private final double tokensPerSecond;
+    private final long embeddingLatencyMs;
+    private final AtomicLong generations = new AtomicLong();
+    private final AtomicLong embeddings = new AtomicLong();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    StubOllamaServer(long firstTokenMs, int tokens, double tokensPerSecond, long embeddingLatencyMs) throws IOException {
+        this.firstTokenMs = firstTokenMs;
+        this.tokens = tokens;
+        this.tokensPerSecond = tokensPerSecond;
+        this.embeddingLatencyMs = embeddingLatencyMs;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/api/generate", this::generate);
+        server.createContext("/api/embeddings", this::embed);
+        server.createContext("/api/tags", this::tags);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    long getGenerationCount() {
+        return generations.get();
+    }
+
+    long getEmbeddingCount() {
+        return embeddings.get();
+    }
+
+    private void generate(HttpExchange exchange) throws IOException {
+        try {
+            generations.incrementAndGet();
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            String model = request.path("model").asText("stub");
+            boolean stream = request.path("stream").asBoolean(true);
+            int promptTokens = request.path("prompt").asText("").length() / 4;
+            long start = System.nanoTime();
+            long tokenIntervalNanos = tokensPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / tokensPerSecond) : 0;
+
+            StubGitHubServer.sleep(firstTokenMs);
+            long evalStart = System.nanoTime();
+            exchange.getResponseHeaders().add("Content-Type", stream ? "application/x-ndjson" : "application/json");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                StringBuilder text = new StringBuilder();
+                for (int i = 0; i < tokens; i++) {
+                    // Pace against the start of evaluation so scheduling jitter does not accumulate
+                    long due = evalStart + (i + 1) * tokenIntervalNanos;
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) StubGitHubServer.sleep(TimeUnit.NANOSECONDS.toMillis(wait));
+                    String token = TOKENS[i % TOKENS.length];
+                    if (stream) {
+                        ObjectNode chunk = objectMapper.createObjectNode();
+                        chunk.put("model", model);
+                        chunk.put("response", token);
+                        chunk.put("done", false);
+                        out.write(objectMapper.writeValueAsBytes(chunk));
+                        out.write('\n');
+                        out.flush();
+                    } else {
+                        text.append(token);
+                    }
+                }
+                long end = System.nanoTime();
+                ObjectNode done = objectMapper.createObjectNode();
+                done.put("model", model);
+                done.put("response", stream ? "" : text.toString());
+                done.put("done", true);
+                done.put("total_duration", end - start);
+                done.put("load_duration", 0);
+                done.put("prompt_eval_count", promptTokens);
+                done.put("prompt_eval_duration", evalStart - start);
+                done.put("eval_count", tokens);
+                done.put("eval_duration", end - evalStart);
+                out.write(objectMapper.writeValueAsBytes(done));
+                out.write('\n');
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void embed(HttpExchange exchange) throws IOException {
+        try {
+            embeddings.incrementAndGet();
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            StubGitHubServer.sleep(embeddingLatencyMs);
+            float[] vector = new float[DIMENSIONS];
+            for (String word : request.path("prompt").asText("").toLowerCase().split("\\W+")) {
+                if (!word.isEmpty()) vector[Math.floorMod(word.hashCode(), DIMENSIONS)] += 1f;
+            }
+            ObjectNode response = objectMapper.createObjectNode();
+            ArrayNode values = response.putArray("embedding");
+            for (float value : vector) values.add(value);
+            send(exchange, objectMapper.writeValueAsBytes(response));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void tags(HttpExchange exchange) throws IOException {
+        try {
+            send(exchange, "{\"models\":[{\"name\":\"stub\"}]}".getBytes(StandardCharsets.UTF_8));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void send(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,140 @@
+package com.aichatbot.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+
+/**
+ * Size- and TTL-bounded LRU cache.
+ * - Least recently used entries are evicted once maxSize is exceeded
+ * - Entries older than the TTL are treated as absent and dropped on access
+ * - Keeps hit/miss/eviction counters for metrics
+ */
+public class BoundedCache<K, V> {
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private volatile BiConsumer<K, V> removalListener = (k, v) -> { };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+
+    /**
+     * @param ttl zero or negative disables expiry
+     */
+    public BoundedCache(int maxSize, Duration ttl) {
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = ttl == null || ttl.isZero() || ttl.isNegative() ? Long.MAX_VALUE : ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Called (under the cache lock) for every entry that leaves the cache: evicted, expired,
+     * removed or replaced.
+     */
+    public void setRemovalListener(BiConsumer<K, V> removalListener) {
+        this.removalListener = removalListener;
+    }
+
+    public V get(K key) {
+        V value = peek(key);
+        if (value == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Lookup without touching the hit/miss counters.
+     */
+    public synchronized V peek(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt != Long.MAX_VALUE && System.nanoTime() - entry.expiresAt > 0) {
+            entries.remove(key);
+            evictions.incrementAndGet();
+            removalListener.accept(key, entry.value);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        puts.incrementAndGet();
+        long expiresAt = ttlNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + ttlNanos;
+        Entry<V> previous = entries.put(key, new Entry<>(value, expiresAt));
+        if (previous != null) {
+            removalListener.accept(key, previous.value);
+        }
+        Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            Map.Entry<K, Entry<V>> eldest = it.next();
+            it.remove();
+            evictions.incrementAndGet();
+            removalListener.accept(eldest.getKey(), eldest.getValue().value);
+        }
+    }
+
+    public synchronized V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        removalListener.accept(key, entry.value);
+        return entry.value;
+    }
+
+    /**
+     * Remove every entry matching the predicate; returns how many were removed.
+     */
+    public synchronized int removeIf(BiPredicate<K, V> filter) {
+        List<K> removed = new ArrayList<>();
+        entries.forEach((k, e) -> {
+            if (filter.test(k, e.value)) removed.add(k);
+        });
+        removed.forEach(this::remove);
+        return removed.size();
+    }
+
+    public synchronized void clear() {
+        List<K> keys = new ArrayList<>(entries.keySet());
+        keys.forEach(this::remove);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() { return maxSize; }
+
+    public long getHits() { return hits.get(); }
+
+    public long getMisses() { return misses.get(); }
+
+    public long getEvictions() { return evictions.get(); }
+
+    public long getPuts() { return puts.get(); }
+}
@@ -0,0 +1,216 @@
+package com.aichatbot.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Spring CacheManager over BoundedCache.
+ * - Every cache is size- and TTL-bounded (per-cache settings, with a default)
+ * - All caches are cleared when the index generation changes, so results computed
+ *   against an older index never outlive a save, delete or reindex
+ * - A put following a missed get on the same thread (how @Cacheable populates a cache) is
+ *   dropped if the generation changed in between, so a value computed against the old index
+ *   is not stored after the clear
+ * - Standard cache.* meters (gets/puts/evictions/size) are registered per cache
+ */
+public class BoundedCacheManager implements CacheManager {
+
+    /**
+     * Size and TTL of one cache.
+     */
+    public static final class Spec {
+        private final int maxEntries;
+        private final Duration ttl;
+
+        public Spec(int maxEntries, Duration ttl) {
+            this.maxEntries = maxEntries;
+            this.ttl = ttl;
+        }
+
+        public int getMaxEntries() { return maxEntries; }
+        public Duration getTtl() { return ttl; }
+    }
+
+    private final Map<String, GenerationBoundCache> caches = new ConcurrentHashMap<>();
+    private final Function<String, Spec> specs;
+    private final LongSupplier generation;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param specs      settings for a cache name
+     * @param generation current index generation; a change clears every cache
+     */
+    public BoundedCacheManager(Function<String, Spec> specs, LongSupplier generation, MeterRegistry meterRegistry) {
+        this.specs = specs;
+        this.generation = generation;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, n -> {
+            GenerationBoundCache cache = new GenerationBoundCache(n, specs.apply(n));
+            if (meterRegistry != null) {
+                new Metrics(cache).bindTo(meterRegistry);
+            }
+            return cache;
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    // Key and index generation of the last missed get on a thread, checked by the put that follows it
+    private static final class Miss {
+        final Object key;
+        final long generation;
+
+        Miss(Object key, long generation) {
+            this.key = key;
+            this.generation = generation;
+        }
+    }
+
+    private final class GenerationBoundCache implements Cache {
+        private final String name;
+        private final BoundedCache<Object, Object> store;
+        private final ThreadLocal<Miss> lastMiss = new ThreadLocal<>();
+        private volatile long seenGeneration;
+
+        GenerationBoundCache(String name, Spec spec) {
+            this.name = name;
+            this.store = new BoundedCache<>(spec.getMaxEntries(), spec.getTtl());
+            this.seenGeneration = generation.getAsLong();
+        }
+
+        // Drop everything computed against an older index; returns the generation checked against
+        private long checkGeneration() {
+            long current = generation.getAsLong();
+            if (current != seenGeneration) {
+                synchronized (store) {
+                    if (current != seenGeneration) {
+                        store.clear();
+                        seenGeneration = current;
+                    }
+                }
+            }
+            return current;
+        }
+
+        @Override
+        public String getName() { return name; }
+
+        @Override
+        public Object getNativeCache() { return store; }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            long current = checkGeneration();
+            Object value = store.get(key);
+            if (value == null) {
+                lastMiss.set(new Miss(key, current));
+            } else {
+                lastMiss.remove();
+            }
+            return value == null ? null : new SimpleValueWrapper(value == NullValue.INSTANCE ? null : value);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Class<T> type) {
+            ValueWrapper wrapper = get(key);
+            Object value = wrapper == null ? null : wrapper.get();
+            if (value != null && type != null && !type.isInstance(value)) {
+                throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+            }
+            return (T) value;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            ValueWrapper wrapper = get(key);
+            if (wrapper != null) {
+                return (T) wrapper.get();
+            }
+            T value;
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                lastMiss.remove();
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            put(key, value);
+            return value;
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            Miss miss = lastMiss.get();
+            lastMiss.remove();
+            long current = checkGeneration();
+            if (miss != null && miss.generation != current && Objects.equals(miss.key, key)) {
+                // Computed after a miss against an index that has changed since
+                return;
+            }
+            store.put(key, value == null ? NullValue.INSTANCE : value);
+        }
+
+        @Override
+        public void evict(Object key) {
+            store.remove(key);
+        }
+
+        @Override
+        public void clear() {
+            store.clear();
+        }
+    }
+
+    private enum NullValue { INSTANCE }
+
+    private static final class Metrics extends CacheMeterBinder<BoundedCache<Object, Object>> {
+        @SuppressWarnings("unchecked")
+        Metrics(GenerationBoundCache cache) {
+            super((BoundedCache<Object, Object>) cache.getNativeCache(), cache.getName(), List.of());
+        }
+
+        private BoundedCache<Object, Object> cache() {
+            return Objects.requireNonNull(getCache());
+        }
+
+        @Override
+        protected Long size() { return (long) cache().size(); }
+
+        @Override
+        protected long hitCount() { return cache().getHits(); }
+
+        @Override
+        protected Long missCount() { return cache().getMisses(); }
+
+        @Override
+        protected Long evictionCount() { return cache().getEvictions(); }
+
+        @Override
+        protected long putCount() { return cache().getPuts(); }
+
+        @Override
+        protected void bindImplementationSpecificMetrics(MeterRegistry registry) { }
+    }
+}
@@ -0,0 +1,47 @@
+package com.aichatbot.cache;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Request coalescing: concurrent calls with the same key share one in-flight computation.
+ * - The first caller for a key starts the call, later callers attach to its future
+ * - The key is released when the call completes, so the next request starts fresh
+ * - Each caller gets its own dependent future; cancelling it does not cancel the shared call
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param shared run when the caller joins a call that is already in flight (e.g. to count it)
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call, Runnable shared) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            shared.run();
+            return existing.copy();
+        }
+        try {
+            call.get().whenComplete((value, ex) -> {
+                inFlight.remove(key, created);
+                if (ex != null) {
+                    created.completeExceptionally(ex);
+                } else {
+                    created.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created.copy();
+    }
+
+    public int size() {
+        return inFlight.size();
+    }
+}
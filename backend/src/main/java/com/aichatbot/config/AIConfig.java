@@ -4,6 +4,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 @Configuration
 public class AIConfig {
 
@@ -31,4 +34,17 @@ public class AIConfig {
     public String embeddingModelName() {
         return embeddingModel;
     }
+
+    /**
+     * One client (and so one keep-alive connection pool) shared by every Ollama call: generate,
+     * streaming generate and embeddings. Ollama serves cleartext HTTP/1.1, so the client is pinned
+     * to HTTP/1.1 instead of attempting an h2c upgrade on each new connection.
+     */
+    @Bean
+    public HttpClient ollamaHttpClient(@Value("${ollama.http.connect-timeout-seconds:10}") long connectTimeoutSeconds) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(connectTimeoutSeconds))
+                .build();
+    }
 }
@@ -0,0 +1,107 @@
+package com.aichatbot.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Named executors that keep blocking work off the common ForkJoinPool and apart from each other,
+ * so slow LLM generations cannot stall indexing or GitHub I/O.
+ * - llm: chat retrieval and generation
+ * - github: GitHub API listing and file fetches
+ * - indexing: chunking, embedding and storing documents
+ * Each uses virtual threads when the JDK provides them (executors.{name}.virtual), otherwise a
+ * bounded pool of executors.{name}.threads with executors.{name}.queue-capacity queued tasks.
+ * All are instrumented as executor.* metrics tagged with their name.
+ * Held by this component rather than exposed as Executor beans, which would replace Spring's
+ * auto-configured task executor used by @Async and async MVC.
+ */
+@Component
+public class AppExecutors {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppExecutors.class);
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    private final ExecutorService llm;
+    private final ExecutorService github;
+    private final ExecutorService indexing;
+
+    public AppExecutors(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.llm = create("llm", 16);
+        this.github = create("github", 16);
+        this.indexing = create("indexing", 8);
+    }
+
+    public ExecutorService llm() { return llm; }
+
+    public ExecutorService github() { return github; }
+
+    public ExecutorService indexing() { return indexing; }
+
+    @PreDestroy
+    public void shutdown() {
+        llm.shutdownNow();
+        github.shutdownNow();
+        indexing.shutdownNow();
+    }
+
+    private ExecutorService create(String name, int defaultThreads) {
+        boolean virtual = environment.getProperty("executors." + name + ".virtual", Boolean.class, true);
+        int threads = environment.getProperty("executors." + name + ".threads", Integer.class, defaultThreads);
+        int queueCapacity = environment.getProperty("executors." + name + ".queue-capacity", Integer.class, 1000);
+
+        ExecutorService executor = virtual ? virtualThreadExecutor(name) : null;
+        if (executor != null) {
+            logger.info("Executor '{}': virtual threads", name);
+        } else {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity), platformThreadFactory(name));
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+            logger.info("Executor '{}': {} threads, queue of {}", name, threads, queueCapacity);
+        }
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, name);
+    }
+
+    /**
+     * Executors.newThreadPerTaskExecutor over named virtual threads, looked up reflectively so the
+     * application still builds and runs on JDK 17. Returns null when virtual threads are unavailable.
+     */
+    private static ExecutorService virtualThreadExecutor(String name) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory platformThreadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.aichatbot.config;
+
+import com.aichatbot.cache.BoundedCacheManager;
+import com.aichatbot.repository.EmbeddingStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    @Value("${cache.bounded.default.max-entries:1000}")
+    private int defaultMaxEntries;
+
+    @Value("${cache.bounded.default.ttl-minutes:30}")
+    private long defaultTtlMinutes;
+
+    /**
+     * Bounded caches for @Cacheable; per-cache overrides via cache.bounded.{name}.max-entries / ttl-minutes.
+     * Every cache is cleared when the embedding store's generation changes.
+     */
+    @Bean
+    public CacheManager cacheManager(EmbeddingStore embeddingStore, MeterRegistry meterRegistry, Environment environment) {
+        return new BoundedCacheManager(name -> new BoundedCacheManager.Spec(
+                environment.getProperty("cache.bounded." + name + ".max-entries", Integer.class, defaultMaxEntries),
+                Duration.ofMinutes(environment.getProperty("cache.bounded." + name + ".ttl-minutes", Long.class, defaultTtlMinutes))),
+                embeddingStore::generation, meterRegistry);
+    }
+}
@@ -1,7 +1,10 @@
 package com.aichatbot.config;
 
+import com.aichatbot.repository.EmbeddingJournal;
 import com.aichatbot.repository.EmbeddingStore;
 import com.aichatbot.repository.FileEmbeddingStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,8 +17,35 @@ public class EmbeddingStoreConfig {
     @Value("${embedding.store.dir:#{systemProperties['user.home']}/.ai-chatbot/embeddings}")
     private String embeddingDir;
 
-    @Bean
+    // Journal durability: none | batch | interval
+    @Value("${embedding.store.fsync:batch}")
+    private String fsyncPolicy;
+
+    @Value("${embedding.store.fsync-interval-ms:1000}")
+    private long fsyncIntervalMs;
+
+    @Value("${embedding.store.journal.max-batch:512}")
+    private int journalBatchSize;
+
+    @Bean(destroyMethod = "close")
     public EmbeddingStore embeddingStore() {
-        return new FileEmbeddingStore(Path.of(embeddingDir));
+        return new FileEmbeddingStore(Path.of(embeddingDir),
+                EmbeddingJournal.FsyncPolicy.valueOf(fsyncPolicy.trim().toUpperCase()),
+                fsyncIntervalMs, journalBatchSize);
+    }
+
+    /**
+     * Size of the store: chunks held, bytes on disk and the index generation.
+     */
+    @Bean
+    public MeterBinder embeddingStoreMetrics(EmbeddingStore embeddingStore) {
+        return registry -> {
+            Gauge.builder("embedding.store.chunks", embeddingStore, EmbeddingStore::count)
+                    .description("Chunks in the embedding store").register(registry);
+            Gauge.builder("embedding.store.size", embeddingStore, EmbeddingStore::sizeOnDiskBytes)
+                    .description("Embedding store size on disk (-1 when unknown)").baseUnit("bytes").register(registry);
+            Gauge.builder("embedding.store.generation", embeddingStore, EmbeddingStore::generation)
+                    .description("Index generation, bumped by every change").register(registry);
+        };
     }
 }
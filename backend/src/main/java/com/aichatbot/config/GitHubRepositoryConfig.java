@@ -41,6 +41,7 @@ public class GitHubRepositoryConfig {
         private String owner;
         private String name;
         private String branch;
+        private String archive; // optional local .tar.gz/.tar/.zip used instead of GitHub
         
         public String getOwner() {
             return owner;
@@ -66,6 +67,14 @@ public class GitHubRepositoryConfig {
             this.branch = branch;
         }
         
+        public String getArchive() {
+            return archive;
+        }
+        
+        public void setArchive(String archive) {
+            this.archive = archive;
+        }
+        
         public String getFullName() {
             return owner + "/" + name;
         }
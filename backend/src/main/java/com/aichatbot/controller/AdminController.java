@@ -78,6 +78,7 @@ public class AdminController {
         long sizeBytes = embeddingStore.sizeOnDiskBytes();
         return ResponseEntity.ok(Map.of(
                 "count", count,
+                "byRepository", embeddingStore.countByRepository(),
                 "sizeBytes", sizeBytes,
                 "sizeMB", sizeBytes >= 0 ? String.format("%.2f", sizeBytes / 1048576.0) : "-1"
         ));
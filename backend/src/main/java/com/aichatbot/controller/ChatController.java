@@ -6,9 +6,15 @@ import com.aichatbot.service.ChatService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 @RestController
@@ -32,6 +38,11 @@ public class ChatController {
                 .thenApply(response -> {
                     if (response.isSuccess()) {
                         return ResponseEntity.ok(response);
+                    } else if (response.isRejected()) {
+                        // Admission control: 429 when the queue is full, 503 when the wait timed out
+                        return ResponseEntity.status(response.getRejectionStatus())
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf(response.getRetryAfterSeconds()))
+                                .body(response);
                     } else {
                         return ResponseEntity.internalServerError().body(response);
                     }
@@ -45,5 +56,50 @@ public class ChatController {
                     return ResponseEntity.internalServerError().body(errorResponse);
                 });
     }
+    
+    /**
+     * Server-sent events variant of /message: "token" events carry {"token": ...} fragments as they
+     * are generated, a final "done" (or "error") event carries the ChatResponse metadata.
+     * A request turned away by admission control ends with an "error" event carrying retryAfterSeconds.
+     * If the client disconnects the upstream generation is cancelled.
+     */
+    @PostMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessage(@Valid @RequestBody ChatRequest request) {
+        logger.info("Received streaming chat message from session: {}", request.getSessionId());
+        
+        SseEmitter emitter = new SseEmitter();
+        CompletableFuture<ChatResponse> generation = chatService.streamMessage(request, token -> {
+            try {
+                emitter.send(SseEmitter.event().name("token").data(Map.of("token", token), MediaType.APPLICATION_JSON));
+            } catch (IOException e) {
+                // Client disconnected; throwing aborts the generation
+                throw new UncheckedIOException(e);
+            }
+        });
+        
+        emitter.onTimeout(() -> generation.cancel(true));
+        emitter.onError(ex -> generation.cancel(true));
+        emitter.onCompletion(() -> generation.cancel(true));
+        
+        generation.whenComplete((response, ex) -> {
+            if (generation.isCancelled()) {
+                return;
+            }
+            try {
+                if (ex == null && response.isSuccess()) {
+                    emitter.send(SseEmitter.event().name("done").data(response, MediaType.APPLICATION_JSON));
+                } else {
+                    ChatResponse error = ex == null ? response
+                            : ChatResponse.error("An unexpected error occurred. Please try again.", request.getSessionId());
+                    emitter.send(SseEmitter.event().name("error").data(error, MediaType.APPLICATION_JSON));
+                }
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+    
     // Chat history endpoints intentionally removed: no session history is stored
 }
@@ -1,5 +1,7 @@
 package com.aichatbot.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.List;
 
 public class ChatResponse {
@@ -12,6 +14,17 @@ public class ChatResponse {
     private boolean success;
     private String errorMessage;
     
+    // Prompt context: chunks used out of those retrieved, estimated tokens, and whether the budget cut it
+    private boolean contextTruncated;
+    private int contextChunksUsed;
+    private int contextChunksTotal;
+    private int contextTokens;
+    
+    // Set when admission control turned the request away: seconds to wait before retrying, and the HTTP status to answer with
+    private Long retryAfterSeconds;
+    @JsonIgnore
+    private int rejectionStatus;
+    
     // Constructors
     public ChatResponse() {}
     
@@ -30,6 +43,16 @@ public class ChatResponse {
         return response;
     }
     
+    /**
+     * Request turned away by admission control (status 429 or 503) with a retry hint.
+     */
+    public static ChatResponse rejected(String errorMessage, String sessionId, int status, long retryAfterSeconds) {
+        ChatResponse response = error(errorMessage, sessionId);
+        response.setRetryAfterSeconds(retryAfterSeconds);
+        response.setRejectionStatus(status);
+        return response;
+    }
+    
     public static ChatResponse success(String message, String sessionId, long responseTime, List<String> sourceFiles, String model) {
         ChatResponse response = new ChatResponse(message, sessionId, responseTime);
         response.setSourceFiles(sourceFiles);
@@ -37,6 +60,27 @@ public class ChatResponse {
         return response;
     }
     
+    /**
+     * Copy of this response for another caller's session (e.g. a coalesced request).
+     */
+    public ChatResponse forSession(String sessionId, long responseTimeMs) {
+        ChatResponse copy = new ChatResponse();
+        copy.response = response;
+        copy.sessionId = sessionId;
+        copy.responseTimeMs = responseTimeMs;
+        copy.sourceFiles = sourceFiles;
+        copy.modelUsed = modelUsed;
+        copy.success = success;
+        copy.errorMessage = errorMessage;
+        copy.contextTruncated = contextTruncated;
+        copy.contextChunksUsed = contextChunksUsed;
+        copy.contextChunksTotal = contextChunksTotal;
+        copy.contextTokens = contextTokens;
+        copy.retryAfterSeconds = retryAfterSeconds;
+        copy.rejectionStatus = rejectionStatus;
+        return copy;
+    }
+    
     // Getters and Setters
     public String getResponse() { return response; }
     public void setResponse(String response) { this.response = response; }
@@ -58,4 +102,26 @@ public class ChatResponse {
     
     public String getErrorMessage() { return errorMessage; }
     public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+    
+    public boolean isContextTruncated() { return contextTruncated; }
+    public void setContextTruncated(boolean contextTruncated) { this.contextTruncated = contextTruncated; }
+    
+    public int getContextChunksUsed() { return contextChunksUsed; }
+    public void setContextChunksUsed(int contextChunksUsed) { this.contextChunksUsed = contextChunksUsed; }
+    
+    public int getContextChunksTotal() { return contextChunksTotal; }
+    public void setContextChunksTotal(int contextChunksTotal) { this.contextChunksTotal = contextChunksTotal; }
+    
+    public int getContextTokens() { return contextTokens; }
+    public void setContextTokens(int contextTokens) { this.contextTokens = contextTokens; }
+    
+    public Long getRetryAfterSeconds() { return retryAfterSeconds; }
+    public void setRetryAfterSeconds(Long retryAfterSeconds) { this.retryAfterSeconds = retryAfterSeconds; }
+    
+    @JsonIgnore
+    public boolean isRejected() { return rejectionStatus != 0; }
+    
+    @JsonIgnore
+    public int getRejectionStatus() { return rejectionStatus; }
+    public void setRejectionStatus(int rejectionStatus) { this.rejectionStatus = rejectionStatus; }
 }
@@ -1,9 +1,14 @@
 package com.aichatbot.model;
 
+import java.lang.ref.SoftReference;
 import java.time.LocalDateTime;
+import java.util.function.Supplier;
 
 public class DocumentEmbedding {
     
+    // chunkIndex of a content-less marker that records the hash of a file which produced no chunks
+    public static final int FILE_MARKER_INDEX = -1;
+    
     private String id;
 
     private String filePath;
@@ -14,7 +19,12 @@ public class DocumentEmbedding {
 
     private String branchName;
 
-    private String contentChunk;
+    private volatile String contentChunk;
+
+    // Lazy source of contentChunk when loaded from a memory-mapped segment (text stays off-heap).
+    // The decoded text is held softly, so repeated reads do not decode it again but it is never pinned.
+    private volatile Supplier<String> contentSource;
+    private volatile SoftReference<String> decodedContent;
 
     private Integer chunkIndex;
 
@@ -22,6 +32,14 @@ public class DocumentEmbedding {
 
     private String embeddingId;
 
+    // Unit-length embedding vector of contentChunk (null when vectors are disabled)
+    private float[] vector;
+
+    // Derived scoring form of contentChunk + filePath; not persisted, rebuilt on demand.
+    // Held softly for segment-backed chunks so it never pins their text on the heap.
+    private volatile NormalizedChunk normalized;
+    private volatile SoftReference<NormalizedChunk> softNormalized;
+
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
@@ -53,12 +71,31 @@ public class DocumentEmbedding {
         this.updatedAt = LocalDateTime.now();
     }
     
+    /**
+     * Marker for a file too short to produce any chunk, so incremental runs see its hash and skip it.
+     * Stores keep markers out of every read except file hashes.
+     */
+    public static DocumentEmbedding fileMarker(String filePath, String repositoryOwner, String repositoryName,
+                                               String branchName, String fileHash) {
+        DocumentEmbedding marker = new DocumentEmbedding(filePath, repositoryOwner, repositoryName, branchName, null, FILE_MARKER_INDEX);
+        marker.setFileHash(fileHash);
+        return marker;
+    }
+    
+    public boolean isFileMarker() {
+        return chunkIndex != null && chunkIndex == FILE_MARKER_INDEX;
+    }
+    
     // Getters and Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
     
     public String getFilePath() { return filePath; }
-    public void setFilePath(String filePath) { this.filePath = filePath; }
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+        this.normalized = null;
+        this.softNormalized = null;
+    }
     
     public String getRepositoryOwner() { return repositoryOwner; }
     public void setRepositoryOwner(String repositoryOwner) { this.repositoryOwner = repositoryOwner; }
@@ -69,8 +106,75 @@ public class DocumentEmbedding {
     public String getBranchName() { return branchName; }
     public void setBranchName(String branchName) { this.branchName = branchName; }
     
-    public String getContentChunk() { return contentChunk; }
-    public void setContentChunk(String contentChunk) { this.contentChunk = contentChunk; }
+    public String getContentChunk() {
+        String content = contentChunk;
+        if (content != null) {
+            return content;
+        }
+        Supplier<String> source = contentSource;
+        if (source == null) {
+            return null;
+        }
+        SoftReference<String> ref = decodedContent;
+        content = ref == null ? null : ref.get();
+        if (content == null) {
+            content = source.get();
+            decodedContent = new SoftReference<>(content);
+        }
+        return content;
+    }
+    public void setContentChunk(String contentChunk) {
+        this.contentChunk = contentChunk;
+        this.contentSource = null;
+        this.decodedContent = null;
+        this.normalized = null;
+        this.softNormalized = null;
+    }
+    public void setContentSource(Supplier<String> contentSource) {
+        // Source first: a concurrent reader that sees the content dropped also sees the source
+        this.contentSource = contentSource;
+        this.decodedContent = null;
+        this.contentChunk = null;
+        this.normalized = null;
+        this.softNormalized = null;
+    }
+    
+    /**
+     * Serve the same text from a new source (e.g. a freshly written segment). Heap copies of the
+     * text and its normalized form are kept only as soft caches.
+     */
+    public void moveContentTo(Supplier<String> contentSource) {
+        String content = getContentChunk();
+        NormalizedChunk n = normalized;
+        this.contentSource = contentSource;
+        this.decodedContent = content == null ? null : new SoftReference<>(content);
+        this.softNormalized = n == null ? softNormalized : new SoftReference<>(n);
+        this.contentChunk = null;
+        this.normalized = null;
+    }
+    
+    /**
+     * Lowercased/tokenized form used for scoring. Computed at ingest time, or on first use
+     * for chunks loaded from disk; the latter may be recomputed after the GC reclaimed it.
+     */
+    public NormalizedChunk getNormalized() {
+        NormalizedChunk n = normalized;
+        if (n != null) {
+            return n;
+        }
+        if (contentSource == null) {
+            n = NormalizedChunk.of(getContentChunk(), filePath);
+            normalized = n;
+            return n;
+        }
+        SoftReference<NormalizedChunk> ref = softNormalized;
+        n = ref == null ? null : ref.get();
+        if (n == null) {
+            n = NormalizedChunk.of(getContentChunk(), filePath);
+            softNormalized = new SoftReference<>(n);
+        }
+        return n;
+    }
     
     public Integer getChunkIndex() { return chunkIndex; }
     public void setChunkIndex(Integer chunkIndex) { this.chunkIndex = chunkIndex; }
@@ -81,6 +185,9 @@ public class DocumentEmbedding {
     public String getEmbeddingId() { return embeddingId; }
     public void setEmbeddingId(String embeddingId) { this.embeddingId = embeddingId; }
     
+    public float[] getVector() { return vector; }
+    public void setVector(float[] vector) { this.vector = vector; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
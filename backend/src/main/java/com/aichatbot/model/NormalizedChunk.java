@@ -0,0 +1,96 @@
+package com.aichatbot.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Query-independent, lowercase-normalized form of a chunk, computed once so scoring
+ * does not lowercase or re-tokenize the chunk for every query.
+ * - lowercased content and file path for substring and phrase checks
+ * - term frequencies of content and path tokens, using the same tokenizer as the inverted index
+ *   and BM25 query terms so non-ASCII words score too
+ */
+public final class NormalizedChunk {
+
+    private final String content;
+    private final String path;
+    private final Map<String, Integer> termFrequencies;
+    private final Map<String, Integer> pathTermFrequencies;
+    private final int length;
+    private final int pathLength;
+
+    private NormalizedChunk(String content, String path,
+                            Map<String, Integer> termFrequencies, Map<String, Integer> pathTermFrequencies) {
+        this.content = content;
+        this.path = path;
+        this.termFrequencies = termFrequencies;
+        this.pathTermFrequencies = pathTermFrequencies;
+        this.length = termFrequencies.values().stream().mapToInt(Integer::intValue).sum();
+        this.pathLength = pathTermFrequencies.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public static NormalizedChunk of(String content, String filePath) {
+        String lowerContent = content == null ? "" : content.toLowerCase();
+        String lowerPath = filePath == null ? "" : filePath.toLowerCase();
+
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        for (String token : tokenize(content)) {
+            termFrequencies.merge(token, 1, Integer::sum);
+        }
+
+        Map<String, Integer> pathTermFrequencies = new HashMap<>();
+        for (String token : tokenize(filePath)) {
+            pathTermFrequencies.merge(token, 1, Integer::sum);
+        }
+        return new NormalizedChunk(lowerContent, lowerPath, termFrequencies, pathTermFrequencies);
+    }
+
+    /**
+     * Lowercase word tokens, split on anything that is not a letter, digit or underscore
+     * (Unicode aware, so "café" is one token).
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) return Collections.emptyList();
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean wordChar = Character.isLetterOrDigit(c) || c == '_';
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        if (start >= 0) tokens.add(text.substring(start).toLowerCase());
+        return tokens;
+    }
+
+    /** Lowercased content */
+    public String getContent() { return content; }
+
+    /** Lowercased file path */
+    public String getPath() { return path; }
+
+    /** Number of (non-empty) content tokens */
+    public int length() { return length; }
+
+    /** Number of file path tokens */
+    public int pathLength() { return pathLength; }
+
+    public int termFrequency(String term) {
+        return termFrequencies.getOrDefault(term, 0);
+    }
+
+    public int pathTermFrequency(String term) {
+        return pathTermFrequencies.getOrDefault(term, 0);
+    }
+
+    public Map<String, Integer> getTermFrequencies() { return termFrequencies; }
+
+    public Map<String, Integer> getPathTermFrequencies() { return pathTermFrequencies; }
+}
@@ -0,0 +1,18 @@
+package com.aichatbot.model;
+
+/**
+ * A chunk returned by vector search together with its cosine similarity to the query.
+ */
+public class VectorMatch {
+
+    private final DocumentEmbedding embedding;
+    private final double similarity;
+
+    public VectorMatch(DocumentEmbedding embedding, double similarity) {
+        this.embedding = embedding;
+        this.similarity = similarity;
+    }
+
+    public DocumentEmbedding getEmbedding() { return embedding; }
+    public double getSimilarity() { return similarity; }
+}
@@ -0,0 +1,253 @@
+package com.aichatbot.repository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Append-friendly concurrent list built from fixed-size chunks.
+ * - Appends write one slot and publish the new size, nothing is copied
+ * - Readers take a snapshot (chunk directory + size) without locking
+ * - Removals only record a tombstone that readers skip; once tombstones exceed a fraction
+ *   of the list it is rebuilt, so removing k elements costs O(k) amortized instead of O(k×N)
+ * Elements are distinct and matched by equals (identity for types that do not override it);
+ * adding an element that is already in the list does nothing.
+ */
+public class AppendOnlyList<T> implements Iterable<T> {
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Rebuild once tombstones exceed max(MIN_TOMBSTONES, slots / TOMBSTONE_RATIO)
+    private static final int MIN_TOMBSTONES = 64;
+    private static final int TOMBSTONE_RATIO = 8;
+
+    private static final class State {
+        final Object[][] chunks;
+        final int size;            // slots in use, including tombstoned ones
+        final Set<Object> removed; // tombstones; shared by every state until the next rebuild
+        final int removedCount;
+
+        State(Object[][] chunks, int size, Set<Object> removed, int removedCount) {
+            this.chunks = chunks;
+            this.size = size;
+            this.removed = removed;
+            this.removedCount = removedCount;
+        }
+    }
+
+    /**
+     * Point-in-time view. Slots below its size are never written again, so it stays valid
+     * while the list keeps growing. Elements removed after the snapshot was taken are
+     * skipped as well, so iteration may yield fewer than size() elements under concurrent removals.
+     */
+    public static final class Snapshot<T> implements Iterable<T> {
+        private final Object[][] chunks;
+        private final int slots;
+        private final int size;
+        private final Set<Object> removed;
+
+        private Snapshot(State s) {
+            this.chunks = s.chunks;
+            this.slots = s.size;
+            this.size = s.size - s.removedCount;
+            this.removed = s.removed;
+        }
+
+        /**
+         * Live elements when the snapshot was taken.
+         */
+        public int size() { return size; }
+
+        public boolean isEmpty() { return size == 0; }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEach(Consumer<? super T> action) {
+            boolean filter = !removed.isEmpty();
+            for (int c = 0, remaining = slots; remaining > 0; c++, remaining -= CHUNK_SIZE) {
+                Object[] chunk = chunks[c];
+                int n = Math.min(remaining, CHUNK_SIZE);
+                for (int i = 0; i < n; i++) {
+                    Object value = chunk[i];
+                    if (!filter || !removed.contains(value)) {
+                        action.accept((T) value);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<>() {
+                int next = advance(0);
+
+                private int advance(int from) {
+                    while (from < slots && removed.contains(slot(from))) from++;
+                    return from;
+                }
+
+                @Override
+                public boolean hasNext() { return next < slots; }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public T next() {
+                    if (next >= slots) throw new NoSuchElementException();
+                    T value = (T) slot(next);
+                    next = advance(next + 1);
+                    return value;
+                }
+            };
+        }
+
+        private Object slot(int index) {
+            return chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+        }
+
+        public List<T> toList() {
+            List<T> list = new ArrayList<>(size);
+            forEach(list::add);
+            return list;
+        }
+    }
+
+    private volatile State state = empty();
+
+    // Live elements, so removals of absent elements are not counted; guarded by the monitor
+    private final Set<Object> present = new HashSet<>();
+
+    public void add(T value) {
+        synchronized (this) {
+            if (!present.add(value)) {
+                return;
+            }
+            State s = state;
+            if (s.removed.contains(value)) {
+                // Re-adding a tombstoned element: drop the old slot first so it is not revived
+                s = rebuild(s);
+            }
+            state = append(s, value);
+        }
+    }
+
+    public void addAll(Collection<? extends T> values) {
+        for (T value : values) {
+            add(value);
+        }
+    }
+
+    /**
+     * Remove an element in O(1) amortized; returns false if it is not in the list.
+     */
+    public boolean remove(T value) {
+        return removeAll(List.of(value)) > 0;
+    }
+
+    /**
+     * Remove elements of the list (see remove); returns how many were newly removed.
+     */
+    public int removeAll(Collection<? extends T> values) {
+        synchronized (this) {
+            State s = state;
+            int added = 0;
+            for (T value : values) {
+                if (present.remove(value)) {
+                    s.removed.add(value);
+                    added++;
+                }
+            }
+            if (added == 0) return 0;
+            s = new State(s.chunks, s.size, s.removed, s.removedCount + added);
+            if (s.removedCount > Math.max(MIN_TOMBSTONES, s.size / TOMBSTONE_RATIO)) {
+                s = rebuild(s);
+            }
+            state = s;
+            return added;
+        }
+    }
+
+    /**
+     * Remove all matching elements by rebuilding the list; returns how many were removed.
+     */
+    public int removeIf(Predicate<? super T> filter) {
+        synchronized (this) {
+            State current = state;
+            State rebuilt = rebuild(current, filter);
+            int removed = (current.size - current.removedCount) - rebuilt.size;
+            if (removed > 0 || current.removedCount > 0) {
+                state = rebuilt;
+            }
+            return removed;
+        }
+    }
+
+    public void clear() {
+        synchronized (this) {
+            state = empty();
+            present.clear();
+        }
+    }
+
+    public Snapshot<T> snapshot() {
+        return new Snapshot<>(state);
+    }
+
+    public int size() {
+        State s = state;
+        return s.size - s.removedCount;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return snapshot().iterator();
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        snapshot().forEach(action);
+    }
+
+    private static State empty() {
+        return new State(new Object[0][], 0, ConcurrentHashMap.newKeySet(), 0);
+    }
+
+    // Caller holds the monitor. Copies live elements into fresh chunks with an empty tombstone set;
+    // snapshots of the old state keep their chunks and tombstones.
+    private State rebuild(State s) {
+        return rebuild(s, v -> false);
+    }
+
+    private State rebuild(State s, Predicate<? super T> drop) {
+        State rebuilt = empty();
+        for (T value : new Snapshot<T>(s)) {
+            if (!drop.test(value)) {
+                rebuilt = append(rebuilt, value);
+            } else {
+                present.remove(value);
+            }
+        }
+        return rebuilt;
+    }
+
+    // Caller holds the monitor. Only slots at or beyond s.size are written, which no snapshot can see.
+    private static State append(State s, Object value) {
+        Object[][] chunks = s.chunks;
+        int n = s.size;
+        int c = n >>> CHUNK_BITS;
+        if (c == chunks.length) {
+            chunks = Arrays.copyOf(chunks, Math.max(4, chunks.length * 2));
+        }
+        if (chunks[c] == null) {
+            chunks[c] = new Object[CHUNK_SIZE];
+        }
+        chunks[c][n & CHUNK_MASK] = value;
+        return new State(chunks, n + 1, s.removed, s.removedCount);
+    }
+}
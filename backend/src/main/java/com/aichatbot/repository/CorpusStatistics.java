@@ -0,0 +1,63 @@
+package com.aichatbot.repository;
+
+import com.aichatbot.model.NormalizedChunk;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Corpus-level term statistics used by probabilistic rankers (BM25).
+ * - document count and average token length of the content and path fields
+ * - document frequency of a term per field, and across both fields
+ */
+public interface CorpusStatistics {
+
+    long documentCount();
+
+    double averageContentLength();
+
+    double averagePathLength();
+
+    /** Chunks whose content contains the term */
+    int contentDocumentFrequency(String term);
+
+    /** Chunks whose file path contains the term */
+    int pathDocumentFrequency(String term);
+
+    /** Chunks whose content or file path contains the term */
+    int documentFrequency(String term);
+
+    /**
+     * One-off statistics computed by scanning a store; for stores that do not maintain them.
+     */
+    static CorpusStatistics scan(EmbeddingStore store) {
+        Map<String, Integer> contentDf = new HashMap<>();
+        Map<String, Integer> pathDf = new HashMap<>();
+        Map<String, Integer> anyDf = new HashMap<>();
+        long[] totals = new long[3]; // documents, content tokens, path tokens
+        store.forEach(e -> {
+            NormalizedChunk chunk = e.getNormalized();
+            totals[0]++;
+            totals[1] += chunk.length();
+            totals[2] += chunk.pathLength();
+            Set<String> terms = new HashSet<>(chunk.getTermFrequencies().keySet());
+            terms.addAll(chunk.getPathTermFrequencies().keySet());
+            chunk.getTermFrequencies().keySet().forEach(t -> contentDf.merge(t, 1, Integer::sum));
+            chunk.getPathTermFrequencies().keySet().forEach(t -> pathDf.merge(t, 1, Integer::sum));
+            terms.forEach(t -> anyDf.merge(t, 1, Integer::sum));
+        });
+        long documents = totals[0];
+        double avgContent = documents == 0 ? 0.0 : (double) totals[1] / documents;
+        double avgPath = documents == 0 ? 0.0 : (double) totals[2] / documents;
+        return new CorpusStatistics() {
+            @Override public long documentCount() { return documents; }
+            @Override public double averageContentLength() { return avgContent; }
+            @Override public double averagePathLength() { return avgPath; }
+            @Override public int contentDocumentFrequency(String term) { return contentDf.getOrDefault(term, 0); }
+            @Override public int pathDocumentFrequency(String term) { return pathDf.getOrDefault(term, 0); }
+            @Override public int documentFrequency(String term) { return anyDf.getOrDefault(term, 0); }
+        };
+    }
+}
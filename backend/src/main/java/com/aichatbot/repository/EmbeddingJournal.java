@@ -0,0 +1,212 @@
+package com.aichatbot.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind JSONL journal.
+ * - Callers enqueue lines and get a future back
+ * - One writer thread drains the queue in batches through a single long-lived FileChannel
+ * - Futures complete once the batch is durable according to the fsync policy
+ */
+public class EmbeddingJournal implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingJournal.class);
+
+    public enum FsyncPolicy {
+        /** Complete after the write reaches the OS page cache */
+        NONE,
+        /** fsync after every batch */
+        BATCH,
+        /** fsync at most once per interval; futures complete at the next fsync */
+        INTERVAL
+    }
+
+    private static final class Op {
+        final List<String> lines; // null for a truncate
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Op(List<String> lines) {
+            this.lines = lines;
+        }
+    }
+
+    private static final Op POISON = new Op(List.of());
+
+    private final FileChannel channel;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMs;
+    private final int maxBatch;
+    private final BlockingQueue<Op> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    // Written but not yet fsynced (INTERVAL policy only)
+    private final List<CompletableFuture<Void>> unsynced = new ArrayList<>();
+    private long lastSync = System.currentTimeMillis();
+
+    public EmbeddingJournal(Path file, FsyncPolicy fsyncPolicy, long fsyncIntervalMs, int maxBatch) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMs = Math.max(1, fsyncIntervalMs);
+        this.maxBatch = Math.max(1, maxBatch);
+        this.writer = new Thread(this::run, "embedding-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Append lines (without trailing newline) as one unit.
+     */
+    public CompletableFuture<Void> append(List<String> lines) {
+        Op op = new Op(lines);
+        queue.add(op);
+        return op.future;
+    }
+
+    /**
+     * Truncate the journal after everything enqueued before this call has been written.
+     */
+    public CompletableFuture<Void> reset() {
+        Op op = new Op(null);
+        queue.add(op);
+        return op.future;
+    }
+
+    /**
+     * Completes once everything enqueued so far is durable.
+     */
+    public CompletableFuture<Void> flush() {
+        return append(List.of());
+    }
+
+    @Override
+    public void close() {
+        queue.add(POISON);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close embeddings journal", e);
+        }
+    }
+
+    private void run() {
+        List<Op> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                Op first = fsyncPolicy == FsyncPolicy.INTERVAL && !unsynced.isEmpty()
+                        ? queue.poll(Math.max(1, lastSync + fsyncIntervalMs - System.currentTimeMillis()), TimeUnit.MILLISECONDS)
+                        : queue.take();
+                batch.clear();
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatch - 1);
+                }
+                running = process(batch);
+                if (fsyncPolicy == FsyncPolicy.INTERVAL && System.currentTimeMillis() - lastSync >= fsyncIntervalMs) {
+                    sync(unsynced);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+        // Final flush on shutdown
+        List<Op> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.remove(POISON);
+        process(rest);
+        sync(unsynced);
+    }
+
+    /**
+     * Write one batch; returns false when the poison pill was seen.
+     */
+    private boolean process(List<Op> batch) {
+        boolean keepRunning = true;
+        List<Op> group = new ArrayList<>();
+        for (Op op : batch) {
+            if (op == POISON) {
+                keepRunning = false;
+            } else if (op.lines == null) {
+                // Truncate: write what precedes it first so ordering is preserved
+                write(group);
+                group.clear();
+                truncate(op);
+            } else {
+                group.add(op);
+            }
+        }
+        write(group);
+        return keepRunning;
+    }
+
+    private void write(List<Op> group) {
+        if (group.isEmpty()) return;
+        StringBuilder pending = new StringBuilder();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(group.size());
+        for (Op op : group) {
+            for (String line : op.lines) {
+                pending.append(line).append('\n');
+            }
+            futures.add(op.future);
+        }
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(pending.toString().getBytes(StandardCharsets.UTF_8));
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write embeddings journal batch", e);
+            futures.forEach(f -> f.completeExceptionally(e));
+            return;
+        }
+        switch (fsyncPolicy) {
+            case NONE -> futures.forEach(f -> f.complete(null));
+            case BATCH -> sync(futures);
+            case INTERVAL -> unsynced.addAll(futures);
+        }
+    }
+
+    private void sync(List<CompletableFuture<Void>> futures) {
+        if (futures.isEmpty()) return;
+        List<CompletableFuture<Void>> toComplete = new ArrayList<>(futures);
+        futures.clear();
+        try {
+            channel.force(false);
+            lastSync = System.currentTimeMillis();
+            toComplete.forEach(f -> f.complete(null));
+        } catch (IOException e) {
+            logger.warn("Failed to fsync embeddings journal", e);
+            toComplete.forEach(f -> f.completeExceptionally(e));
+        }
+    }
+
+    private void truncate(Op op) {
+        try {
+            channel.truncate(0);
+            channel.force(false);
+            op.future.complete(null);
+        } catch (IOException e) {
+            logger.warn("Failed to reset embeddings journal", e);
+            op.future.completeExceptionally(e);
+        }
+    }
+}
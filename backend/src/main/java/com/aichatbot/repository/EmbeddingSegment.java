@@ -0,0 +1,288 @@
+package com.aichatbot.repository;
+
+import com.aichatbot.model.DocumentEmbedding;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Immutable, memory-mapped binary segment of embeddings.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   int magic "AIES", int version, int count, int reserved
+ *   long[count] record offsets
+ *   long[count] vector offsets (-1 when the chunk has no vector)
+ *   records:  length-prefixed UTF-8 fields (length -1 = null), int chunkIndex,
+ *             content last so it can be skipped when loading
+ *   vectors:  int dimension, float[dimension]
+ * </pre>
+ * Chunk text is not materialized on load; each DocumentEmbedding reads it from the
+ * mapping on demand. Files are mapped in 1 GiB windows, so segments may exceed 2 GiB;
+ * values straddling two windows are assembled byte by byte.
+ */
+final class EmbeddingSegment {
+
+    private static final int MAGIC = 0x41494553; // "AIES"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int NULL_INDEX = Integer.MIN_VALUE;
+    private static final int WINDOW_BITS = 30; // 1 GiB per mapping
+
+    private EmbeddingSegment() { }
+
+    /**
+     * Write a segment; returns the offset of each embedding's content field (-1 when it has no content),
+     * so callers can point live embeddings at the new file. The list is walked once per section,
+     * so it must not change while being written.
+     */
+    static long[] write(Path target, List<DocumentEmbedding> embeddings) throws IOException {
+        int count = embeddings.size();
+        long[] recordOffsets = new long[count];
+        long[] vectorOffsets = new long[count];
+        long[] contentOffsets = new long[count];
+        long tablesEnd = HEADER_BYTES + 16L * count;
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.position(tablesEnd);
+            CountingOutputStream counter = new CountingOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), tablesEnd);
+            DataOutputStream out = new DataOutputStream(counter);
+
+            int i = 0;
+            for (DocumentEmbedding e : embeddings) {
+                recordOffsets[i++] = counter.position;
+                writeString(out, e.getId());
+                writeString(out, e.getFilePath());
+                writeString(out, e.getRepositoryOwner());
+                writeString(out, e.getRepositoryName());
+                writeString(out, e.getBranchName());
+                writeString(out, e.getFileHash());
+                writeString(out, e.getEmbeddingId());
+                writeString(out, e.getCreatedAt() == null ? null : e.getCreatedAt().toString());
+                writeString(out, e.getUpdatedAt() == null ? null : e.getUpdatedAt().toString());
+                out.writeInt(e.getChunkIndex() == null ? NULL_INDEX : e.getChunkIndex());
+                String content = e.getContentChunk();
+                contentOffsets[i - 1] = content == null ? -1 : counter.position;
+                writeString(out, content);
+            }
+
+            i = 0;
+            for (DocumentEmbedding e : embeddings) {
+                float[] vector = e.getVector();
+                if (vector == null) {
+                    vectorOffsets[i++] = -1;
+                    continue;
+                }
+                vectorOffsets[i++] = counter.position;
+                out.writeInt(vector.length);
+                for (float v : vector) out.writeFloat(v);
+            }
+            out.flush();
+
+            ByteBuffer head = ByteBuffer.allocate((int) tablesEnd);
+            head.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0);
+            for (long offset : recordOffsets) head.putLong(offset);
+            for (long offset : vectorOffsets) head.putLong(offset);
+            head.flip();
+            channel.position(0);
+            while (head.hasRemaining()) channel.write(head);
+            channel.force(true);
+        }
+        return contentOffsets;
+    }
+
+    /**
+     * Map a segment and decode its records. Metadata and vectors are read onto the heap,
+     * chunk text stays in the mapping.
+     */
+    static List<DocumentEmbedding> read(Path file) throws IOException {
+        return read(file, WINDOW_BITS);
+    }
+
+    static List<DocumentEmbedding> read(Path file, int windowBits) throws IOException {
+        Mapping mapping = map(file, windowBits);
+        if (mapping.size() < HEADER_BYTES || mapping.getInt(0) != MAGIC) {
+            throw new IOException("Not an embedding segment: " + file);
+        }
+        int version = mapping.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported segment version " + version + ": " + file);
+        }
+        int count = mapping.getInt(8);
+
+        // Repeated values (paths, repo names, branches) share one String instance
+        Map<String, String> pool = new HashMap<>();
+        List<DocumentEmbedding> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long pos = mapping.getLong(HEADER_BYTES + 8L * i);
+            long vectorOffset = mapping.getLong(HEADER_BYTES + 8L * count + 8L * i);
+
+            DocumentEmbedding e = new DocumentEmbedding();
+            String[] fields = new String[9];
+            for (int f = 0; f < fields.length; f++) {
+                int len = mapping.getInt(pos);
+                pos += 4;
+                if (len >= 0) {
+                    fields[f] = f == 0 ? mapping.decode(pos, len) : pool.computeIfAbsent(mapping.decode(pos, len), k -> k);
+                    pos += len;
+                }
+            }
+            int chunkIndex = mapping.getInt(pos);
+            pos += 4;
+
+            e.setId(fields[0]);
+            e.setFilePath(fields[1]);
+            e.setRepositoryOwner(fields[2]);
+            e.setRepositoryName(fields[3]);
+            e.setBranchName(fields[4]);
+            e.setFileHash(fields[5]);
+            e.setEmbeddingId(fields[6]);
+            if (fields[7] != null && !fields[7].isBlank()) e.setCreatedAt(LocalDateTime.parse(fields[7]));
+            if (fields[8] != null && !fields[8].isBlank()) e.setUpdatedAt(LocalDateTime.parse(fields[8]));
+            e.setChunkIndex(chunkIndex == NULL_INDEX ? null : chunkIndex);
+            if (mapping.getInt(pos) >= 0) {
+                e.setContentSource(mapping.content(pos));
+            }
+            if (vectorOffset >= 0) {
+                byte[] bytes = new byte[mapping.getInt(vectorOffset) * Float.BYTES];
+                mapping.get(vectorOffset + 4, bytes);
+                float[] vector = new float[bytes.length / Float.BYTES];
+                ByteBuffer.wrap(bytes).order(ByteOrder.BIG_ENDIAN).asFloatBuffer().get(vector);
+                e.setVector(vector);
+            }
+            result.add(e);
+        }
+        return result;
+    }
+
+    static Mapping map(Path file) throws IOException {
+        return map(file, WINDOW_BITS);
+    }
+
+    private static Mapping map(Path file, int windowBits) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new Mapping(channel, windowBits);
+        }
+    }
+
+    /**
+     * Read-only view of a segment file as consecutive mapped windows, addressed by long offsets.
+     * All reads are absolute, so it is safe for concurrent readers.
+     */
+    static final class Mapping {
+        private final MappedByteBuffer[] windows;
+        private final int windowBits;
+        private final long windowMask;
+        private final long size;
+
+        private Mapping(FileChannel channel, int windowBits) throws IOException {
+            this.size = channel.size();
+            this.windowBits = windowBits;
+            this.windowMask = (1L << windowBits) - 1;
+            long windowSize = 1L << windowBits;
+            this.windows = new MappedByteBuffer[(int) ((size + windowSize - 1) >>> windowBits)];
+            for (int w = 0; w < windows.length; w++) {
+                long start = (long) w << windowBits;
+                windows[w] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+            }
+        }
+
+        long size() { return size; }
+
+        int getInt(long pos) {
+            MappedByteBuffer window = windows[(int) (pos >>> windowBits)];
+            int offset = (int) (pos & windowMask);
+            if (offset + Integer.BYTES <= window.limit()) {
+                return window.getInt(offset);
+            }
+            byte[] bytes = new byte[Integer.BYTES];
+            get(pos, bytes);
+            return ByteBuffer.wrap(bytes).getInt();
+        }
+
+        long getLong(long pos) {
+            MappedByteBuffer window = windows[(int) (pos >>> windowBits)];
+            int offset = (int) (pos & windowMask);
+            if (offset + Long.BYTES <= window.limit()) {
+                return window.getLong(offset);
+            }
+            byte[] bytes = new byte[Long.BYTES];
+            get(pos, bytes);
+            return ByteBuffer.wrap(bytes).getLong();
+        }
+
+        void get(long pos, byte[] dst) {
+            int copied = 0;
+            while (copied < dst.length) {
+                MappedByteBuffer window = windows[(int) (pos >>> windowBits)];
+                int offset = (int) (pos & windowMask);
+                int n = Math.min(dst.length - copied, window.limit() - offset);
+                window.get(offset, dst, copied, n);
+                copied += n;
+                pos += n;
+            }
+        }
+
+        String decode(long pos, int len) {
+            byte[] bytes = new byte[len];
+            get(pos, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Lazy reader of the length-prefixed string at pos (a content offset returned by write).
+         */
+        Supplier<String> content(long pos) {
+            return () -> {
+                int len = getInt(pos);
+                return len < 0 ? null : decode(pos + 4, len);
+            };
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static final class CountingOutputStream extends java.io.FilterOutputStream {
+        long position;
+
+        CountingOutputStream(OutputStream out, long start) {
+            super(out);
+            this.position = start;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            position++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            position += len;
+        }
+    }
+}
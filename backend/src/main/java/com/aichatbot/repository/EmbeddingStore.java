@@ -1,16 +1,88 @@
 package com.aichatbot.repository;
 
 import com.aichatbot.model.DocumentEmbedding;
+import com.aichatbot.model.VectorMatch;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * Abstraction for storing and retrieving embeddings without coupling to a specific DB.
  */
 public interface EmbeddingStore {
+    /**
+     * Copy of every stored chunk. Prefer forEach/scan on hot paths, they do not allocate a corpus-sized list.
+     */
     List<DocumentEmbedding> findAll();
 
+    /**
+     * Visit every stored chunk without copying.
+     */
+    default void forEach(Consumer<DocumentEmbedding> action) {
+        findAll().forEach(action);
+    }
+
+    /**
+     * Visit every chunk accepted by the filter (null accepts all).
+     */
+    default void scan(Predicate<DocumentEmbedding> filter, Consumer<DocumentEmbedding> visitor) {
+        forEach(e -> {
+            if (filter == null || filter.test(e)) {
+                visitor.accept(e);
+            }
+        });
+    }
+
+    /**
+     * Chunks sharing at least one term with the given query terms.
+     * Stores without a term index fall back to returning everything.
+     */
+    default List<DocumentEmbedding> findCandidates(Collection<String> queryTerms) {
+        return findAll();
+    }
+
+    /**
+     * Visit the chunks sharing at least one term with the query terms, without building a list.
+     */
+    default void forEachCandidate(Collection<String> queryTerms, Consumer<DocumentEmbedding> visitor) {
+        findCandidates(queryTerms).forEach(visitor);
+    }
+
+    /**
+     * All chunks of a file (any repository), in no particular order.
+     */
+    default List<DocumentEmbedding> findByFilePath(String filePath) {
+        List<DocumentEmbedding> result = new ArrayList<>();
+        scan(e -> filePath != null && filePath.equals(e.getFilePath()), result::add);
+        return result;
+    }
+
+    /**
+     * The k chunks whose vectors are most similar to the (unit-length) query vector, best first.
+     * Chunks without a vector or rejected by the filter are skipped. The default is an exact
+     * linear scan; stores with an ANN index override it.
+     */
+    default List<VectorMatch> nearestNeighbours(float[] query, int k, Predicate<DocumentEmbedding> filter) {
+        if (query == null || k <= 0) return List.of();
+        List<VectorMatch> matches = new ArrayList<>();
+        scan(e -> e.getVector() != null && (filter == null || filter.test(e)),
+                e -> matches.add(new VectorMatch(e, HnswIndex.dot(query, e.getVector()))));
+        return matches.stream()
+                .sorted(Comparator.comparingDouble(VectorMatch::getSimilarity).reversed())
+                .limit(k)
+                .collect(Collectors.toList());
+    }
+
     void save(DocumentEmbedding embedding);
 
     default void saveAll(Collection<DocumentEmbedding> embeddings) {
@@ -20,12 +92,77 @@ public interface EmbeddingStore {
         }
     }
 
+    /**
+     * Save a batch and return a future that completes once it is durable.
+     */
+    default CompletableFuture<Void> saveAllAsync(Collection<DocumentEmbedding> embeddings) {
+        saveAll(embeddings);
+        return CompletableFuture.completedFuture(null);
+    }
+
     void deleteByRepositoryOwnerAndRepositoryName(String repositoryOwner, String repositoryName);
 
+    /**
+     * Delete every chunk of the given files within one repository.
+     */
+    void deleteByFilePaths(String repositoryOwner, String repositoryName, Collection<String> filePaths);
+
+    /**
+     * Replace every chunk of one file with its new version and return a future that completes
+     * once the new version is durable. Stores that can swap atomically override this; the
+     * default deletes, then saves.
+     */
+    default CompletableFuture<Void> replaceFile(String repositoryOwner, String repositoryName, String filePath,
+                                                Collection<DocumentEmbedding> embeddings) {
+        deleteByFilePaths(repositoryOwner, repositoryName, List.of(filePath));
+        return saveAllAsync(embeddings);
+    }
+
+    /**
+     * Stored file hash per file path of a repository (null when a file was indexed without one).
+     * Includes files recorded only by a file marker (see DocumentEmbedding#isFileMarker).
+     */
+    default Map<String, String> fileHashes(String repositoryOwner, String repositoryName) {
+        Map<String, String> hashes = new HashMap<>();
+        scan(e -> Objects.equals(repositoryOwner, e.getRepositoryOwner()) && Objects.equals(repositoryName, e.getRepositoryName()),
+                e -> hashes.put(e.getFilePath(), e.getFileHash()));
+        return hashes;
+    }
+
+    /**
+     * Term statistics over the stored chunks (document frequencies, average field lengths).
+     * Stores that keep a term index serve them live; the default computes a snapshot by scanning.
+     */
+    default CorpusStatistics corpusStatistics() {
+        return CorpusStatistics.scan(this);
+    }
+
+    /**
+     * Counter bumped by every change to the stored chunks. Anything derived from the index
+     * (e.g. cached search results) is stale once the generation moves.
+     */
+    default long generation() { return 0; }
+
+    /**
+     * Register a listener called with the ids of chunks that were deleted or overwritten,
+     * so caches derived from chunk content can drop stale entries.
+     */
+    default void addRemovalListener(Consumer<Collection<String>> listener) { }
+
     /** Stats helpers */
     default long count() {
-        List<DocumentEmbedding> all = findAll();
-        return all == null ? 0 : all.size();
+        long[] count = {0};
+        forEach(e -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Number of chunks per repository, keyed by owner/name.
+     */
+    default Map<String, Long> countByRepository() {
+        Map<String, Long> counts = new TreeMap<>();
+        forEach(e -> counts.merge(e.getRepositoryOwner() + "/" + e.getRepositoryName(), 1L, Long::sum));
+        return counts;
     }
 
     /**
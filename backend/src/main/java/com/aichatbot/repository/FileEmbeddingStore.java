@@ -1,39 +1,76 @@
 package com.aichatbot.repository;
 
 import com.aichatbot.model.DocumentEmbedding;
+import com.aichatbot.model.VectorMatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * File-backed embedding store.
  * - Keeps an in-memory list for fast reads
- * - Persists to a JSONL file for durability
+ * - Persists to a memory-mapped binary segment (chunk text is paged in lazily)
+ * - Appends new writes to a write-behind JSONL journal that is folded into the segment on compaction
+ * - File-level deletions are journaled as tombstones, repository deletions rewrite the segment
  * - No external DB required
  */
-public class FileEmbeddingStore implements EmbeddingStore {
+public class FileEmbeddingStore implements EmbeddingStore, AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(FileEmbeddingStore.class);
+    private static final String TOMBSTONE_PREFIX = "{\"deleted\":";
 
     private final Path dataDir;
-    private final Path dataFile;
+    private final Path dataFile;     // JSONL journal of writes since the last compaction
+    private final Path segmentFile;  // binary segment holding the compacted state
 
-    // In-memory index for speed
-    private final List<DocumentEmbedding> all = new CopyOnWriteArrayList<>();
-    private final Map<String, List<DocumentEmbedding>> byRepo = new ConcurrentHashMap<>(); // key: owner|name
+    // In-memory index for speed (append-only lists: O(1) appends and removals, lock-free snapshots for readers)
+    private final AppendOnlyList<DocumentEmbedding> all = new AppendOnlyList<>();
+    private final Map<String, AppendOnlyList<DocumentEmbedding>> byRepo = new ConcurrentHashMap<>(); // key: owner|name
+    private final Map<String, AppendOnlyList<DocumentEmbedding>> byFile = new ConcurrentHashMap<>(); // key: owner|name|filePath
+    private final Map<String, DocumentEmbedding> byId = new ConcurrentHashMap<>();
+    private final Map<String, DocumentEmbedding> fileMarkers = new ConcurrentHashMap<>(); // key: owner|name|filePath
+    private final InvertedIndex invertedIndex = new InvertedIndex();
+    private final HnswIndex vectorIndex = new HnswIndex();
+
+    // Saves hold the read lock, compaction the write lock, so no write lands between snapshot and journal reset
+    private final ReadWriteLock persistLock = new ReentrantReadWriteLock();
+
+    private final List<Consumer<Collection<String>>> removalListeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final EmbeddingJournal.FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMs;
+    private final int journalBatchSize;
+    private EmbeddingJournal journal;
 
     public FileEmbeddingStore(Path dataDir) {
+        this(dataDir, EmbeddingJournal.FsyncPolicy.BATCH, 1000, 512);
+    }
+
+    public FileEmbeddingStore(Path dataDir, EmbeddingJournal.FsyncPolicy fsyncPolicy, long fsyncIntervalMs, int journalBatchSize) {
         this.dataDir = dataDir;
         this.dataFile = dataDir.resolve("embeddings.jsonl");
+        this.segmentFile = dataDir.resolve("embeddings.seg");
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMs = fsyncIntervalMs;
+        this.journalBatchSize = journalBatchSize;
         init();
     }
 
@@ -42,74 +79,224 @@ public class FileEmbeddingStore implements EmbeddingStore {
             if (Files.notExists(dataDir)) {
                 Files.createDirectories(dataDir);
             }
+            boolean migrating = Files.notExists(segmentFile) && Files.exists(dataFile) && Files.size(dataFile) > 0;
+            boolean segmentLoaded = true;
+            if (Files.exists(segmentFile)) {
+                segmentLoaded = loadSegment();
+            }
+            int replayed = 0;
             if (Files.exists(dataFile)) {
-                loadFromDisk();
-            } else {
-                Files.createFile(dataFile);
+                replayed = replayJournal();
+            }
+            journal = new EmbeddingJournal(dataFile, fsyncPolicy, fsyncIntervalMs, journalBatchSize);
+            if (migrating) {
+                // First boot on the binary format: keep the original JSONL next to the new segment
+                Files.copy(dataFile, dataDir.resolve("embeddings.jsonl.bak"), StandardCopyOption.REPLACE_EXISTING);
+                logger.info("Migrating {} embeddings from {} to {}", replayed, dataFile, segmentFile);
+            }
+            if (replayed > 0 && segmentLoaded) {
+                compact();
             }
+            logger.info("Loaded {} embeddings ({} indexed terms, {} vectors) from {}",
+                    all.size(), invertedIndex.termCount(), vectorIndex.size(), dataDir);
         } catch (IOException e) {
             logger.warn("Failed to initialize FileEmbeddingStore", e);
+            if (journal == null) {
+                throw new IllegalStateException("Cannot open embeddings journal " + dataFile, e);
+            }
         }
     }
 
-    private void loadFromDisk() throws IOException {
+    /**
+     * Index the segment. An unreadable segment is moved aside rather than left in place, so the
+     * next compaction cannot overwrite it with journal-only data; returns false in that case.
+     */
+    private boolean loadSegment() throws IOException {
+        List<DocumentEmbedding> loaded;
+        try {
+            loaded = EmbeddingSegment.read(segmentFile);
+        } catch (IOException | RuntimeException e) {
+            Path aside = dataDir.resolve(segmentFile.getFileName() + ".unreadable-" + System.currentTimeMillis());
+            Files.move(segmentFile, aside);
+            logger.warn("Failed to load embedding segment {}, moved it to {} and starting from journal only",
+                    segmentFile, aside, e);
+            return false;
+        }
+        for (DocumentEmbedding e : loaded) {
+            index(e);
+        }
+        return true;
+    }
+
+    private int replayJournal() throws IOException {
+        int replayed = 0;
         try (BufferedReader reader = Files.newBufferedReader(dataFile, StandardCharsets.UTF_8)) {
             String line;
             while ((line = reader.readLine()) != null) {
+                if (line.startsWith(TOMBSTONE_PREFIX)) {
+                    unindex(unquote(line.substring(TOMBSTONE_PREFIX.length(), line.length() - 1)));
+                    replayed++;
+                    continue;
+                }
                 DocumentEmbedding e = deserialize(line);
                 if (e != null) {
                     index(e);
+                    replayed++;
                 }
             }
         }
-        logger.info("Loaded {} embeddings from {}", all.size(), dataFile);
+        return replayed;
     }
 
-    private void appendToDisk(DocumentEmbedding e) {
-        try (BufferedWriter writer = Files.newBufferedWriter(dataFile, StandardCharsets.UTF_8, StandardOpenOption.APPEND)) {
-            writer.write(serialize(e));
-            writer.newLine();
-        } catch (IOException ex) {
-            logger.warn("Failed to persist embedding to disk", ex);
+    /**
+     * Write the current in-memory state as a new segment, move the live chunks' text onto it
+     * and reset the journal. Used after deletions and to fold replayed journal entries in at startup.
+     */
+    private void compact() {
+        persistLock.writeLock().lock();
+        try {
+            Path tmp = segmentFile.getParent().resolve(segmentFile.getFileName() + ".tmp");
+            // Materialized once: snapshots skip tombstones added after they were taken, so walking
+            // one lazily per pass could let records, vectors and remapped offsets disagree
+            List<DocumentEmbedding> entries = all.snapshot().toList();
+            entries.addAll(fileMarkers.values());
+            long[] contentOffsets;
+            try {
+                contentOffsets = EmbeddingSegment.write(tmp, entries);
+            } catch (IOException ex) {
+                logger.warn("Failed to write embedding segment", ex);
+                return;
+            }
+            try {
+                Files.move(tmp, segmentFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                logger.warn("Failed to atomically replace embedding segment", ex);
+                return;
+            }
+            remap(entries, contentOffsets);
+            try {
+                // Everything journaled so far is now contained in the segment
+                journal.reset().join();
+            } catch (Exception ex) {
+                logger.warn("Failed to reset embeddings journal", ex);
+            }
+        } finally {
+            persistLock.writeLock().unlock();
         }
     }
 
-    private void rewriteFile() {
-        // Compact file to current in-memory state, used after deletions
-        Path tmp = dataFile.getParent().resolve(dataFile.getFileName() + ".tmp");
-        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-            for (DocumentEmbedding e : all) {
-                writer.write(serialize(e));
-                writer.newLine();
-            }
+    /**
+     * Point every live embedding's text at the new segment, so freshly ingested text leaves the heap
+     * and nothing keeps the previous mapping alive.
+     */
+    private void remap(List<DocumentEmbedding> entries, long[] contentOffsets) {
+        EmbeddingSegment.Mapping mapping;
+        try {
+            mapping = EmbeddingSegment.map(segmentFile);
         } catch (IOException ex) {
-            logger.warn("Failed to rewrite embeddings file", ex);
+            logger.warn("Failed to map embedding segment {}, keeping chunk text on the heap", segmentFile, ex);
             return;
         }
-        try {
-            Files.move(tmp, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
-        } catch (IOException ex) {
-            logger.warn("Failed to atomically replace embeddings file", ex);
+        for (int i = 0; i < entries.size(); i++) {
+            long offset = contentOffsets[i];
+            if (offset >= 0) {
+                entries.get(i).moveContentTo(mapping.content(offset));
+            }
         }
     }
 
     private void index(DocumentEmbedding e) {
+        if (e.isFileMarker()) {
+            // Not searchable, only reported by fileHashes
+            fileMarkers.put(markerKey(e.getRepositoryOwner(), e.getRepositoryName(), e.getFilePath()), e);
+            return;
+        }
+        DocumentEmbedding previous = byId.get(e.getId());
+        if (previous != null) {
+            // Journal entries replayed over the segment (or re-saved chunks) replace the older copy
+            all.remove(previous);
+            unindexSecondary(previous);
+            notifyRemoved(List.of(previous.getId()));
+        }
         all.add(e);
         String key = repoKey(e.getRepositoryOwner(), e.getRepositoryName());
-        byRepo.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(e);
+        byRepo.computeIfAbsent(key, k -> new AppendOnlyList<>()).add(e);
+        if (e.getFilePath() != null) {
+            // Added inside compute so it serializes with the removal of an emptied list for the same key
+            byFile.compute(fileKey(e), (k, chunks) -> {
+                AppendOnlyList<DocumentEmbedding> list = chunks == null ? new AppendOnlyList<>() : chunks;
+                list.add(e);
+                return list;
+            });
+        }
+        byId.put(e.getId(), e);
+        invertedIndex.add(e);
+        if (e.getVector() != null) {
+            vectorIndex.add(e.getId(), e.getVector());
+        }
+        generation.incrementAndGet(); // after the change is visible
     }
 
-    private String repoKey(String owner, String name) {
-        return (owner == null ? "" : owner) + "|" + (name == null ? "" : name);
+    /**
+     * Remove an embedding from every index except the main list.
+     */
+    private void unindexSecondary(DocumentEmbedding e) {
+        byId.remove(e.getId());
+        invertedIndex.remove(e);
+        vectorIndex.remove(e.getId());
+        AppendOnlyList<DocumentEmbedding> repoChunks = byRepo.get(repoKey(e.getRepositoryOwner(), e.getRepositoryName()));
+        if (repoChunks != null) {
+            repoChunks.remove(e);
+        }
+        if (e.getFilePath() != null) {
+            byFile.computeIfPresent(fileKey(e), (k, chunks) -> {
+                chunks.remove(e);
+                return chunks.isEmpty() ? null : chunks;
+            });
+        }
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Remove an embedding by id from every index, if present.
+     */
+    private void unindex(String id) {
+        DocumentEmbedding e = byId.get(id);
+        if (e != null) {
+            all.remove(e);
+            unindexSecondary(e);
+        } else {
+            fileMarkers.values().removeIf(marker -> id.equals(marker.getId()));
+        }
     }
 
     @Override
-    public List<DocumentEmbedding> findAll() {
-        return new ArrayList<>(all);
+    public CorpusStatistics corpusStatistics() {
+        return invertedIndex;
     }
 
     @Override
-    public void save(DocumentEmbedding embedding) {
+    public long generation() {
+        return generation.get();
+    }
+
+    @Override
+    public void addRemovalListener(Consumer<Collection<String>> listener) {
+        removalListeners.add(listener);
+    }
+
+    private void notifyRemoved(Collection<String> ids) {
+        for (Consumer<Collection<String>> listener : removalListeners) {
+            try {
+                listener.accept(ids);
+            } catch (Exception e) {
+                logger.warn("Embedding removal listener failed", e);
+            }
+        }
+    }
+
+    // Assign id and timestamps as needed and return the journal line
+    private String stamp(DocumentEmbedding embedding) {
         if (embedding.getId() == null || embedding.getId().isBlank()) {
             embedding.setId(UUID.randomUUID().toString());
         }
@@ -117,33 +304,288 @@ public class FileEmbeddingStore implements EmbeddingStore {
             embedding.setCreatedAt(LocalDateTime.now());
         }
         embedding.setUpdatedAt(LocalDateTime.now());
-        index(embedding);
-        appendToDisk(embedding);
+        return serialize(embedding);
+    }
+
+    private String repoKey(String owner, String name) {
+        return (owner == null ? "" : owner) + "|" + (name == null ? "" : name);
+    }
+
+    private String markerKey(String owner, String name, String filePath) {
+        return repoKey(owner, name) + "|" + filePath;
+    }
+
+    private String fileKey(DocumentEmbedding e) {
+        return markerKey(e.getRepositoryOwner(), e.getRepositoryName(), e.getFilePath());
+    }
+
+    @Override
+    public List<DocumentEmbedding> findAll() {
+        return all.snapshot().toList();
+    }
+
+    @Override
+    public void forEach(Consumer<DocumentEmbedding> action) {
+        all.snapshot().forEach(action);
+    }
+
+    @Override
+    public void forEachCandidate(Collection<String> queryTerms, Consumer<DocumentEmbedding> visitor) {
+        for (String id : invertedIndex.candidates(queryTerms)) {
+            DocumentEmbedding e = byId.get(id);
+            if (e != null) visitor.accept(e);
+        }
+    }
+
+    @Override
+    public long count() {
+        return all.size();
+    }
+
+    @Override
+    public Map<String, Long> countByRepository() {
+        Map<String, Long> counts = new TreeMap<>();
+        byRepo.forEach((key, chunks) -> {
+            if (!chunks.isEmpty()) {
+                counts.put(key.replace('|', '/'), (long) chunks.size());
+            }
+        });
+        return counts;
+    }
+
+    @Override
+    public List<DocumentEmbedding> findCandidates(Collection<String> queryTerms) {
+        Set<String> ids = invertedIndex.candidates(queryTerms);
+        List<DocumentEmbedding> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            DocumentEmbedding e = byId.get(id);
+            if (e != null) result.add(e);
+        }
+        return result;
+    }
+
+    @Override
+    public List<DocumentEmbedding> findByFilePath(String filePath) {
+        List<DocumentEmbedding> result = new ArrayList<>();
+        if (filePath == null) return result;
+        // One lookup per repository (a handful), not a scan
+        for (String repo : byRepo.keySet()) {
+            AppendOnlyList<DocumentEmbedding> chunks = byFile.get(repo + "|" + filePath);
+            if (chunks != null) chunks.forEach(result::add);
+        }
+        return result;
+    }
+
+    @Override
+    public List<VectorMatch> nearestNeighbours(float[] query, int k, Predicate<DocumentEmbedding> filter) {
+        Predicate<String> idFilter = id -> {
+            DocumentEmbedding e = byId.get(id);
+            return e != null && (filter == null || filter.test(e));
+        };
+        List<VectorMatch> matches = new ArrayList<>();
+        for (HnswIndex.Hit hit : vectorIndex.search(query, k, idFilter)) {
+            DocumentEmbedding e = byId.get(hit.getId());
+            if (e != null) matches.add(new VectorMatch(e, hit.getSimilarity()));
+        }
+        return matches;
+    }
+
+    @Override
+    public void save(DocumentEmbedding embedding) {
+        saveAllAsync(List.of(embedding));
+    }
+
+    @Override
+    public void saveAll(Collection<DocumentEmbedding> embeddings) {
+        saveAllAsync(embeddings);
+    }
+
+    /**
+     * Index immediately and hand the batch to the write-behind journal.
+     * The future completes when the batch is durable per the fsync policy.
+     */
+    @Override
+    public CompletableFuture<Void> saveAllAsync(Collection<DocumentEmbedding> embeddings) {
+        if (embeddings == null || embeddings.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<String> lines = new ArrayList<>(embeddings.size());
+        for (DocumentEmbedding embedding : embeddings) {
+            lines.add(stamp(embedding));
+        }
+        persistLock.readLock().lock();
+        try {
+            embeddings.forEach(this::index);
+            return journal.append(lines);
+        } finally {
+            persistLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Swap every chunk (and marker) of one file for its new version in one step.
+     * - Old and new chunks change places under the write lock, so readers never see the file without chunks
+     * - Tombstones and new lines go to the journal as one batch
+     * - The file hash is only recorded once that batch is durable; if the write fails the file
+     *   reports no hash and the next incremental run reprocesses it
+     */
+    @Override
+    public CompletableFuture<Void> replaceFile(String repositoryOwner, String repositoryName, String filePath,
+                                               Collection<DocumentEmbedding> embeddings) {
+        List<DocumentEmbedding> replacement = embeddings == null ? List.of() : List.copyOf(embeddings);
+        String key = markerKey(repositoryOwner, repositoryName, filePath);
+        Map<DocumentEmbedding, String> hashes = new IdentityHashMap<>();
+        List<String> lines = new ArrayList<>();
+        for (DocumentEmbedding embedding : replacement) {
+            lines.add(stamp(embedding));
+            if (embedding.getFileHash() != null) {
+                hashes.put(embedding, embedding.getFileHash());
+                embedding.setFileHash(null);
+            }
+        }
+
+        Set<String> ids;
+        CompletableFuture<Void> durable;
+        persistLock.writeLock().lock();
+        try {
+            List<DocumentEmbedding> removed = new ArrayList<>();
+            AppendOnlyList<DocumentEmbedding> chunks = byFile.get(key);
+            if (chunks != null) {
+                chunks.forEach(removed::add);
+            }
+            DocumentEmbedding marker = fileMarkers.remove(key);
+            ids = removed.stream().map(DocumentEmbedding::getId).collect(Collectors.toSet());
+
+            List<String> batch = new ArrayList<>(ids.size() + lines.size() + 1);
+            Stream.concat(ids.stream(), marker == null ? Stream.empty() : Stream.of(marker.getId()))
+                    .map(id -> TOMBSTONE_PREFIX + "\"" + escape(id) + "\"}")
+                    .forEach(batch::add);
+            batch.addAll(lines);
+
+            all.removeAll(removed);
+            for (DocumentEmbedding e : removed) {
+                unindexSecondary(e);
+            }
+            replacement.forEach(this::index);
+            durable = batch.isEmpty() ? CompletableFuture.completedFuture(null) : journal.append(batch);
+        } finally {
+            persistLock.writeLock().unlock();
+        }
+        if (!ids.isEmpty()) {
+            notifyRemoved(ids);
+        }
+        return durable.whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                logger.warn("Failed to persist new version of {}, it will be reprocessed", filePath, ex);
+            } else {
+                hashes.forEach(DocumentEmbedding::setFileHash);
+            }
+        });
+    }
+
+    /**
+     * Flush the journal and stop its writer thread.
+     */
+    @Override
+    public void close() {
+        journal.close();
     }
 
     @Override
     public void deleteByRepositoryOwnerAndRepositoryName(String repositoryOwner, String repositoryName) {
         String key = repoKey(repositoryOwner, repositoryName);
-        List<DocumentEmbedding> removed = byRepo.remove(key);
-        if (removed != null) {
-            Set<String> ids = removed.stream().map(DocumentEmbedding::getId).collect(Collectors.toSet());
-            all.removeIf(e -> ids.contains(e.getId()));
-            // Compact file to reflect deletions
-            rewriteFile();
+        Set<String> ids = Set.of();
+        // Same lock as compaction, so no compaction sees the repository half removed
+        persistLock.writeLock().lock();
+        try {
+            boolean markersRemoved = fileMarkers.keySet().removeIf(k -> k.startsWith(key + "|"));
+            AppendOnlyList<DocumentEmbedding> removedList = byRepo.remove(key);
+            if (removedList != null) {
+                List<DocumentEmbedding> removed = removedList.snapshot().toList();
+                ids = removed.stream().map(DocumentEmbedding::getId).collect(Collectors.toSet());
+                all.removeAll(removed);
+                for (DocumentEmbedding e : removed) {
+                    unindexSecondary(e);
+                }
+            }
+            if (removedList != null || markersRemoved) {
+                // Compact file to reflect deletions
+                compact();
+            }
+        } finally {
+            persistLock.writeLock().unlock();
+        }
+        if (!ids.isEmpty()) {
+            notifyRemoved(ids);
         }
     }
 
+    /**
+     * Drop the chunks of the given files and journal one tombstone per chunk, so small
+     * incremental deletions do not rewrite the whole segment.
+     */
+    @Override
+    public void deleteByFilePaths(String repositoryOwner, String repositoryName, Collection<String> filePaths) {
+        if (filePaths == null || filePaths.isEmpty()) return;
+        List<DocumentEmbedding> removed = new ArrayList<>();
+        List<String> removedMarkers = new ArrayList<>();
+        for (String filePath : filePaths) {
+            DocumentEmbedding marker = fileMarkers.remove(markerKey(repositoryOwner, repositoryName, filePath));
+            if (marker != null) removedMarkers.add(marker.getId());
+            AppendOnlyList<DocumentEmbedding> chunks = filePath == null ? null
+                    : byFile.get(markerKey(repositoryOwner, repositoryName, filePath));
+            if (chunks != null) {
+                chunks.forEach(removed::add);
+            }
+        }
+        if (removed.isEmpty() && removedMarkers.isEmpty()) return;
+
+        Set<String> ids = removed.stream().map(DocumentEmbedding::getId).collect(Collectors.toSet());
+        List<String> tombstones = Stream.concat(ids.stream(), removedMarkers.stream())
+                .map(id -> TOMBSTONE_PREFIX + "\"" + escape(id) + "\"}")
+                .collect(Collectors.toList());
+        persistLock.readLock().lock();
+        try {
+            all.removeAll(removed);
+            for (DocumentEmbedding e : removed) {
+                unindexSecondary(e);
+            }
+            journal.append(tombstones);
+        } finally {
+            persistLock.readLock().unlock();
+        }
+        notifyRemoved(ids);
+    }
+
+    @Override
+    public Map<String, String> fileHashes(String repositoryOwner, String repositoryName) {
+        Map<String, String> hashes = new HashMap<>();
+        AppendOnlyList<DocumentEmbedding> chunks = byRepo.get(repoKey(repositoryOwner, repositoryName));
+        if (chunks != null) {
+            chunks.forEach(e -> hashes.put(e.getFilePath(), e.getFileHash()));
+        }
+        String prefix = repoKey(repositoryOwner, repositoryName) + "|";
+        fileMarkers.forEach((key, marker) -> {
+            if (key.startsWith(prefix)) hashes.put(marker.getFilePath(), marker.getFileHash());
+        });
+        return hashes;
+    }
+
     @Override
     public long sizeOnDiskBytes() {
         try {
-            if (Files.exists(dataFile)) {
-                return Files.size(dataFile);
+            long size = -1;
+            for (Path file : List.of(segmentFile, dataFile)) {
+                if (Files.exists(file)) {
+                    size = Math.max(size, 0) + Files.size(file);
+                }
             }
+            return size;
         } catch (IOException ignored) { }
         return -1;
     }
 
-    private String serialize(DocumentEmbedding e) {
+    String serialize(DocumentEmbedding e) {
         // Minimal JSON to avoid extra dependencies
         StringBuilder sb = new StringBuilder();
         sb.append('{')
@@ -156,13 +598,14 @@ public class FileEmbeddingStore implements EmbeddingStore {
           .append("\"chunkIndex\":").append(e.getChunkIndex() == null ? "null" : e.getChunkIndex()).append(',')
           .append("\"fileHash\":\"").append(escape(e.getFileHash())).append("\",")
           .append("\"embeddingId\":\"").append(escape(e.getEmbeddingId())).append("\",")
+          .append("\"vector\":\"").append(encodeVector(e.getVector())).append("\",")
           .append("\"createdAt\":\"").append(e.getCreatedAt() == null ? "" : e.getCreatedAt().toString()).append("\",")
           .append("\"updatedAt\":\"").append(e.getUpdatedAt() == null ? "" : e.getUpdatedAt().toString()).append('"')
           .append('}');
         return sb.toString();
     }
 
-    private DocumentEmbedding deserialize(String json) {
+    DocumentEmbedding deserialize(String json) {
         try {
             // Very small, permissive parser for our own JSON layout
             Map<String, String> map = new HashMap<>();
@@ -209,6 +652,7 @@ public class FileEmbeddingStore implements EmbeddingStore {
             e.setChunkIndex(map.get("chunkIndex") == null ? null : Integer.parseInt(map.get("chunkIndex")));
             e.setFileHash(map.get("fileHash"));
             e.setEmbeddingId(map.get("embeddingId"));
+            e.setVector(decodeVector(map.get("vector")));
             String createdAt = map.get("createdAt");
             String updatedAt = map.get("updatedAt");
             if (createdAt != null && !createdAt.isBlank()) e.setCreatedAt(LocalDateTime.parse(createdAt));
@@ -220,6 +664,22 @@ public class FileEmbeddingStore implements EmbeddingStore {
         }
     }
 
+    // Vectors are stored as base64 of packed little-endian floats
+    private String encodeVector(float[] vector) {
+        if (vector == null) return "";
+        ByteBuffer buf = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buf.asFloatBuffer().put(vector);
+        return Base64.getEncoder().encodeToString(buf.array());
+    }
+
+    private float[] decodeVector(String encoded) {
+        if (encoded == null || encoded.isBlank()) return null;
+        ByteBuffer buf = ByteBuffer.wrap(Base64.getDecoder().decode(encoded)).order(ByteOrder.LITTLE_ENDIAN);
+        float[] vector = new float[buf.remaining() / Float.BYTES];
+        buf.asFloatBuffer().get(vector);
+        return vector;
+    }
+
     private String unquote(String s) {
         s = s.trim();
         if (s.startsWith("\"")) s = s.substring(1);
@@ -0,0 +1,321 @@
+package com.aichatbot.repository;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Hierarchical Navigable Small World graph for approximate nearest neighbour search.
+ * - Vectors are expected to be unit length, similarity is the dot product (cosine)
+ * - Deletes are tombstones; the graph is rebuilt once tombstones outnumber live nodes
+ * - Writers are serialized, searches run concurrently
+ */
+public class HnswIndex {
+
+    /**
+     * A search hit: chunk id and cosine similarity to the query.
+     */
+    public static final class Hit {
+        private final String id;
+        private final double similarity;
+
+        Hit(String id, double similarity) {
+            this.id = id;
+            this.similarity = similarity;
+        }
+
+        public String getId() { return id; }
+        public double getSimilarity() { return similarity; }
+    }
+
+    private static final class Node {
+        final String id;
+        final float[] vector;
+        final int[][] links;
+        final int[] linkCounts;
+        boolean deleted;
+
+        Node(String id, float[] vector, int level, int m, int maxM0) {
+            this.id = id;
+            this.vector = vector;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+            for (int l = 0; l <= level; l++) {
+                links[l] = new int[l == 0 ? maxM0 : m];
+            }
+        }
+
+        int level() { return links.length - 1; }
+    }
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<String, Integer> nodeIds = new HashMap<>();
+    private int entryPoint = -1;
+    private int deletedCount = 0;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public HnswIndex() {
+        this(16, 100, 64);
+    }
+
+    public HnswIndex(int m, int efConstruction, int efSearch) {
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.levelMultiplier = 1.0 / Math.log(m);
+    }
+
+    public void add(String id, float[] vector) {
+        if (id == null || vector == null || vector.length == 0) return;
+        lock.writeLock().lock();
+        try {
+            Integer existing = nodeIds.get(id);
+            if (existing != null) {
+                markDeleted(existing);
+            }
+            insert(id, vector);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodeIds.remove(id);
+            if (node != null) {
+                markDeleted(node);
+                if (deletedCount > nodeIds.size()) {
+                    rebuild();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            nodes.clear();
+            nodeIds.clear();
+            entryPoint = -1;
+            deletedCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodeIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to k live nodes most similar to the query, best first. Only ids accepted by the
+     * filter are returned; the search widens its beam until k accepted hits are found
+     * or the whole graph has been explored.
+     */
+    public List<Hit> search(float[] query, int k, Predicate<String> filter) {
+        if (query == null || k <= 0) return Collections.emptyList();
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) return Collections.emptyList();
+            int ep = greedyDescent(query, entryPoint, nodes.get(entryPoint).level(), 1);
+            int ef = Math.max(efSearch, k);
+            while (true) {
+                PriorityQueue<double[]> found = searchLayer(query, ep, ef, 0);
+                List<Hit> hits = new ArrayList<>();
+                double[][] ordered = found.toArray(new double[0][]);
+                Arrays.sort(ordered, (a, b) -> Double.compare(b[0], a[0]));
+                for (double[] candidate : ordered) {
+                    Node node = nodes.get((int) candidate[1]);
+                    if (node.deleted || (filter != null && !filter.test(node.id))) continue;
+                    hits.add(new Hit(node.id, candidate[0]));
+                    if (hits.size() == k) break;
+                }
+                if (hits.size() >= k || ef >= nodes.size()) {
+                    return hits;
+                }
+                ef = Math.min(ef * 2, nodes.size());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(String id, float[] vector) {
+        int level = randomLevel();
+        int nodeId = nodes.size();
+        Node node = new Node(id, vector, level, m, maxM0);
+        nodes.add(node);
+        nodeIds.put(id, nodeId);
+
+        if (entryPoint < 0) {
+            entryPoint = nodeId;
+            return;
+        }
+
+        int topLevel = nodes.get(entryPoint).level();
+        int ep = greedyDescent(vector, entryPoint, topLevel, level + 1);
+
+        for (int l = Math.min(level, topLevel); l >= 0; l--) {
+            PriorityQueue<double[]> candidates = searchLayer(vector, ep, efConstruction, l);
+            int maxLinks = l == 0 ? maxM0 : m;
+            int[] selected = closest(candidates, maxLinks);
+            for (int neighbour : selected) {
+                link(nodeId, neighbour, l);
+                link(neighbour, nodeId, l);
+            }
+            ep = best(candidates);
+        }
+
+        if (level > topLevel) {
+            entryPoint = nodeId;
+        }
+    }
+
+    /**
+     * Walks down from the given level to stopLevel (exclusive) keeping only the closest node.
+     */
+    private int greedyDescent(float[] query, int ep, int fromLevel, int stopLevel) {
+        int current = ep;
+        double currentSim = dot(query, nodes.get(current).vector);
+        for (int l = fromLevel; l >= stopLevel; l--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                Node node = nodes.get(current);
+                if (l > node.level()) break;
+                for (int i = 0; i < node.linkCounts[l]; i++) {
+                    int neighbour = node.links[l][i];
+                    double sim = dot(query, nodes.get(neighbour).vector);
+                    if (sim > currentSim) {
+                        currentSim = sim;
+                        current = neighbour;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Beam search within one layer. Returns a min-heap of [similarity, nodeId] of size <= ef.
+     */
+    private PriorityQueue<double[]> searchLayer(float[] query, int ep, int ef, int level) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<double[]> candidates = new PriorityQueue<>((a, b) -> Double.compare(b[0], a[0]));
+        PriorityQueue<double[]> results = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+
+        double[] start = {dot(query, nodes.get(ep).vector), ep};
+        visited.set(ep);
+        candidates.add(start);
+        results.add(start);
+
+        while (!candidates.isEmpty()) {
+            double[] current = candidates.poll();
+            if (results.size() >= ef && current[0] < results.peek()[0]) break;
+            Node node = nodes.get((int) current[1]);
+            if (level > node.level()) continue;
+            for (int i = 0; i < node.linkCounts[level]; i++) {
+                int neighbour = node.links[level][i];
+                if (visited.get(neighbour)) continue;
+                visited.set(neighbour);
+                double sim = dot(query, nodes.get(neighbour).vector);
+                if (results.size() < ef || sim > results.peek()[0]) {
+                    double[] entry = {sim, neighbour};
+                    candidates.add(entry);
+                    results.add(entry);
+                    if (results.size() > ef) results.poll();
+                }
+            }
+        }
+        return results;
+    }
+
+    private void link(int from, int to, int level) {
+        Node node = nodes.get(from);
+        int[] links = node.links[level];
+        if (node.linkCounts[level] < links.length) {
+            links[node.linkCounts[level]++] = to;
+            return;
+        }
+        // Full: keep the closest neighbours including the new one
+        PriorityQueue<double[]> pool = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        pool.add(new double[]{dot(node.vector, nodes.get(to).vector), to});
+        for (int i = 0; i < node.linkCounts[level]; i++) {
+            pool.add(new double[]{dot(node.vector, nodes.get(links[i]).vector), links[i]});
+        }
+        int[] kept = closest(pool, links.length);
+        System.arraycopy(kept, 0, links, 0, kept.length);
+        node.linkCounts[level] = kept.length;
+    }
+
+    private static int[] closest(PriorityQueue<double[]> heap, int max) {
+        double[][] all = heap.toArray(new double[0][]);
+        Arrays.sort(all, (a, b) -> Double.compare(b[0], a[0]));
+        int n = Math.min(max, all.length);
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) ids[i] = (int) all[i][1];
+        return ids;
+    }
+
+    private static int best(PriorityQueue<double[]> heap) {
+        double[] best = null;
+        for (double[] e : heap) {
+            if (best == null || e[0] > best[0]) best = e;
+        }
+        return (int) best[1];
+    }
+
+    private void markDeleted(int node) {
+        Node n = nodes.get(node);
+        if (!n.deleted) {
+            n.deleted = true;
+            deletedCount++;
+        }
+    }
+
+    private void rebuild() {
+        List<Node> live = new ArrayList<>();
+        for (Node n : nodes) {
+            if (!n.deleted) live.add(n);
+        }
+        nodes.clear();
+        nodeIds.clear();
+        entryPoint = -1;
+        deletedCount = 0;
+        for (Node n : live) {
+            insert(n.id, n.vector);
+        }
+    }
+
+    private int randomLevel() {
+        double r = ThreadLocalRandom.current().nextDouble();
+        return (int) Math.floor(-Math.log(Math.max(r, Double.MIN_VALUE)) * levelMultiplier);
+    }
+
+    static double dot(float[] a, float[] b) {
+        int n = Math.min(a.length, b.length);
+        double sum = 0.0;
+        for (int i = 0; i < n; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,263 @@
+package com.aichatbot.repository;
+
+import com.aichatbot.model.DocumentEmbedding;
+import com.aichatbot.model.NormalizedChunk;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over stored chunks.
+ * - Content terms map to postings (chunk id, term frequency, token positions)
+ * - File path terms are indexed separately so filename matches stay retrievable
+ * - Maintained incrementally by the store on save and delete
+ * - Doubles as the live corpus statistics (document frequencies, average field lengths) for BM25
+ */
+public class InvertedIndex implements CorpusStatistics {
+
+    /**
+     * Occurrences of one term inside one chunk.
+     */
+    public static final class Posting {
+        private final String chunkId;
+        private final int[] positions;
+
+        Posting(String chunkId, int[] positions) {
+            this.chunkId = chunkId;
+            this.positions = positions;
+        }
+
+        public String getChunkId() { return chunkId; }
+        public int[] getPositions() { return positions; }
+        public int getTermFrequency() { return positions.length; }
+    }
+
+    // Minimum query term length for prefix expansion (mirrors the partial-match rules in scoring)
+    private static final int MIN_PREFIX_LENGTH = 3;
+
+    private final NavigableMap<String, Map<String, Posting>> contentPostings = new TreeMap<>();
+    private final NavigableMap<String, Set<String>> pathPostings = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Field length totals over the indexed chunks, guarded by the lock
+    private long documents;
+    private long contentTokens;
+    private long pathTokens;
+
+    public void add(DocumentEmbedding e) {
+        if (e == null || e.getId() == null) return;
+        String id = e.getId();
+        // Tokenize outside the lock, only the map updates are serialized
+        List<String> contentTokenList = tokenize(e.getContentChunk());
+        Map<String, int[]> positions = termPositions(contentTokenList);
+        List<String> pathTokenList = tokenize(e.getFilePath());
+        Set<String> pathTerms = new HashSet<>(pathTokenList);
+
+        lock.writeLock().lock();
+        try {
+            documents++;
+            contentTokens += contentTokenList.size();
+            pathTokens += pathTokenList.size();
+            for (Map.Entry<String, int[]> entry : positions.entrySet()) {
+                contentPostings.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+                        .put(id, new Posting(id, entry.getValue()));
+            }
+            for (String term : pathTerms) {
+                pathPostings.computeIfAbsent(term, k -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(DocumentEmbedding e) {
+        if (e == null || e.getId() == null) return;
+        String id = e.getId();
+        List<String> contentTokenList = tokenize(e.getContentChunk());
+        List<String> pathTokenList = tokenize(e.getFilePath());
+        Set<String> contentTerms = new HashSet<>(contentTokenList);
+        Set<String> pathTerms = new HashSet<>(pathTokenList);
+
+        lock.writeLock().lock();
+        try {
+            documents = Math.max(0, documents - 1);
+            contentTokens = Math.max(0, contentTokens - contentTokenList.size());
+            pathTokens = Math.max(0, pathTokens - pathTokenList.size());
+            for (String term : contentTerms) {
+                Map<String, Posting> list = contentPostings.get(term);
+                if (list != null) {
+                    list.remove(id);
+                    if (list.isEmpty()) contentPostings.remove(term);
+                }
+            }
+            for (String term : pathTerms) {
+                Set<String> ids = pathPostings.get(term);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) pathPostings.remove(term);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            contentPostings.clear();
+            pathPostings.clear();
+            documents = 0;
+            contentTokens = 0;
+            pathTokens = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of all chunks whose content or path shares at least one term with the query terms.
+     * Query terms are tokenized the same way as chunk content and, when long enough,
+     * also match indexed terms they are a prefix of (e.g. "config" -> "configuration").
+     */
+    public Set<String> candidates(Collection<String> queryTerms) {
+        Set<String> terms = new HashSet<>();
+        for (String q : queryTerms) {
+            terms.addAll(tokenize(q));
+        }
+        Set<String> ids = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            for (String term : terms) {
+                for (Map<String, Posting> list : matching(contentPostings, term).values()) {
+                    ids.addAll(list.keySet());
+                }
+                for (Set<String> list : matching(pathPostings, term).values()) {
+                    ids.addAll(list);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ids;
+    }
+
+    /**
+     * Postings of a single (exact) content term, or an empty map.
+     */
+    public Map<String, Posting> postings(String term) {
+        lock.readLock().lock();
+        try {
+            Map<String, Posting> list = contentPostings.get(term);
+            return list == null ? Collections.emptyMap() : new HashMap<>(list);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return contentPostings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long documentCount() {
+        lock.readLock().lock();
+        try {
+            return documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public double averageContentLength() {
+        lock.readLock().lock();
+        try {
+            return documents == 0 ? 0.0 : (double) contentTokens / documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public double averagePathLength() {
+        lock.readLock().lock();
+        try {
+            return documents == 0 ? 0.0 : (double) pathTokens / documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int contentDocumentFrequency(String term) {
+        lock.readLock().lock();
+        try {
+            Map<String, Posting> list = contentPostings.get(term);
+            return list == null ? 0 : list.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int pathDocumentFrequency(String term) {
+        lock.readLock().lock();
+        try {
+            Set<String> ids = pathPostings.get(term);
+            return ids == null ? 0 : ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int documentFrequency(String term) {
+        lock.readLock().lock();
+        try {
+            Map<String, Posting> content = contentPostings.get(term);
+            Set<String> path = pathPostings.get(term);
+            int df = content == null ? 0 : content.size();
+            if (path != null) {
+                for (String id : path) {
+                    if (content == null || !content.containsKey(id)) df++;
+                }
+            }
+            return df;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static <V> Map<String, V> matching(NavigableMap<String, V> map, String term) {
+        if (term.length() < MIN_PREFIX_LENGTH) {
+            V exact = map.get(term);
+            return exact == null ? Collections.emptyMap() : Map.of(term, exact);
+        }
+        return map.subMap(term, true, term + Character.MAX_VALUE, false);
+    }
+
+    private static Map<String, int[]> termPositions(List<String> tokens) {
+        Map<String, List<Integer>> collected = new HashMap<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            collected.computeIfAbsent(tokens.get(i), k -> new ArrayList<>()).add(i);
+        }
+        Map<String, int[]> result = new HashMap<>(collected.size() * 2);
+        collected.forEach((term, list) -> result.put(term, list.stream().mapToInt(Integer::intValue).toArray()));
+        return result;
+    }
+
+    /**
+     * Lowercase word tokens, split on anything that is not a letter, digit or underscore.
+     * Same tokenizer as NormalizedChunk, so postings and chunk term frequencies agree.
+     */
+    public static List<String> tokenize(String text) {
+        return NormalizedChunk.tokenize(text);
+    }
+}
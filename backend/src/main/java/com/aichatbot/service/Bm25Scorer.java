@@ -0,0 +1,86 @@
+package com.aichatbot.service;
+
+import com.aichatbot.model.DocumentEmbedding;
+import com.aichatbot.model.NormalizedChunk;
+import com.aichatbot.repository.CorpusStatistics;
+import com.aichatbot.repository.EmbeddingStore;
+import com.aichatbot.repository.InvertedIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * BM25F over two fields, chunk content and file path.
+ * - Per-field term frequencies are length-normalized (b) and weighted, then saturated once (k1)
+ * - IDF comes from the store's live corpus statistics, so weights follow the corpus as it changes
+ * - Scoring a chunk only reads its precomputed term-frequency maps, no text scans
+ */
+@Component
+public class Bm25Scorer implements Scorer {
+
+    private final EmbeddingStore embeddingStore;
+    private final double k1;
+    private final double contentB;
+    private final double pathB;
+    private final double contentWeight;
+    private final double pathWeight;
+
+    public Bm25Scorer(EmbeddingStore embeddingStore,
+                      @Value("${rag.bm25.k1:1.2}") double k1,
+                      @Value("${rag.bm25.content.b:0.75}") double contentB,
+                      @Value("${rag.bm25.path.b:0.5}") double pathB,
+                      @Value("${rag.bm25.content.weight:1.0}") double contentWeight,
+                      @Value("${rag.bm25.path.weight:2.0}") double pathWeight) {
+        this.embeddingStore = embeddingStore;
+        this.k1 = k1;
+        this.contentB = contentB;
+        this.pathB = pathB;
+        this.contentWeight = contentWeight;
+        this.pathWeight = pathWeight;
+    }
+
+    @Override
+    public String getName() {
+        return "bm25";
+    }
+
+    @Override
+    public QueryScorer prepare(String query) {
+        Set<String> unique = new LinkedHashSet<>();
+        for (String term : InvertedIndex.tokenize(query)) {
+            if (term.length() > 1) unique.add(term);
+        }
+        String[] terms = unique.toArray(new String[0]);
+
+        CorpusStatistics stats = embeddingStore.corpusStatistics();
+        long documents = stats.documentCount();
+        double[] idf = new double[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            int df = stats.documentFrequency(terms[i]);
+            idf[i] = Math.log(1.0 + (documents - df + 0.5) / (df + 0.5));
+        }
+        double avgContent = Math.max(stats.averageContentLength(), 1.0);
+        double avgPath = Math.max(stats.averagePathLength(), 1.0);
+
+        return chunk -> score(chunk, terms, idf, avgContent, avgPath);
+    }
+
+    private double score(DocumentEmbedding embedding, String[] terms, double[] idf, double avgContent, double avgPath) {
+        NormalizedChunk chunk = embedding.getNormalized();
+        double contentNorm = 1.0 - contentB + contentB * chunk.length() / avgContent;
+        double pathNorm = 1.0 - pathB + pathB * chunk.pathLength() / avgPath;
+
+        double score = 0.0;
+        for (int i = 0; i < terms.length; i++) {
+            int contentTf = chunk.termFrequency(terms[i]);
+            int pathTf = chunk.pathTermFrequency(terms[i]);
+            if (contentTf == 0 && pathTf == 0) continue;
+
+            double tf = contentWeight * contentTf / contentNorm + pathWeight * pathTf / pathNorm;
+            score += idf[i] * tf / (k1 + tf);
+        }
+        return score;
+    }
+}
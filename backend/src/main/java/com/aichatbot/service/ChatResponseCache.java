@@ -0,0 +1,271 @@
+package com.aichatbot.service;
+
+import com.aichatbot.cache.BoundedCache;
+import com.aichatbot.dto.ChatRequest;
+import com.aichatbot.model.DocumentEmbedding;
+import com.aichatbot.repository.EmbeddingStore;
+import com.aichatbot.service.DocumentProcessingService.Retrieval;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of generated chat answers.
+ * - Keyed on the normalized question, the request mode and the ids of the retrieved chunks,
+ *   so a hit only happens when the LLM would have seen exactly the same context
+ * - Optional near-duplicate match: a differently worded question over the same chunks
+ *   reuses the answer when the query embeddings are similar enough (the vector retrieval
+ *   already computed is reused, no extra embedding call is made)
+ * - Entries are dropped as soon as one of their chunks is deleted or overwritten in the store;
+ *   an answer is not stored if the store changed since its chunks were retrieved
+ * - Hits, misses, size and evictions are published as chat.response.cache.* metrics
+ */
+@Component
+public class ChatResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatResponseCache.class);
+
+    /**
+     * A cached answer and what it was generated from.
+     */
+    public static final class CachedResponse {
+        private final String response;
+        private final List<String> sourceFiles;
+        private final Set<String> chunkIds;
+        private final String chunkKey;
+        private final float[] queryVector;
+
+        CachedResponse(String response, List<String> sourceFiles, Set<String> chunkIds, String chunkKey, float[] queryVector) {
+            this.response = response;
+            this.sourceFiles = sourceFiles;
+            this.chunkIds = chunkIds;
+            this.chunkKey = chunkKey;
+            this.queryVector = queryVector;
+        }
+
+        public String getResponse() { return response; }
+        public List<String> getSourceFiles() { return sourceFiles; }
+    }
+
+    /**
+     * Result of a lookup; pass it back to put() after generating on a miss.
+     */
+    public static final class Lookup {
+        private final String key;
+        private final String chunkKey;
+        private final Set<String> chunkIds;
+        private final float[] queryVector;
+        private final long generation;
+        private CachedResponse hit;
+
+        Lookup(String key, String chunkKey, Set<String> chunkIds, float[] queryVector, long generation) {
+            this.key = key;
+            this.chunkKey = chunkKey;
+            this.chunkIds = chunkIds;
+            this.queryVector = queryVector;
+            this.generation = generation;
+        }
+
+        public boolean isHit() { return hit != null; }
+        public CachedResponse getHit() { return hit; }
+    }
+
+    private final BoundedCache<String, CachedResponse> cache;
+    private final EmbeddingStore embeddingStore;
+
+    // Reverse indexes, maintained through the cache's removal listener
+    private final Map<String, Set<String>> keysByChunkId = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> keysByChunkKey = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+    private final boolean nearDuplicateEnabled;
+    private final double nearDuplicateThreshold;
+
+    private final Counter exactHits;
+    private final Counter nearHits;
+    private final Counter misses;
+    private final Counter invalidations;
+
+    public ChatResponseCache(EmbeddingStore embeddingStore,
+                             MeterRegistry meterRegistry,
+                             @Value("${chat.cache.enabled:true}") boolean enabled,
+                             @Value("${chat.cache.max-entries:500}") int maxEntries,
+                             @Value("${chat.cache.ttl-minutes:360}") long ttlMinutes,
+                             @Value("${chat.cache.near-duplicate.enabled:true}") boolean nearDuplicateEnabled,
+                             @Value("${chat.cache.near-duplicate.threshold:0.95}") double nearDuplicateThreshold) {
+        this.embeddingStore = embeddingStore;
+        this.enabled = enabled;
+        this.nearDuplicateEnabled = nearDuplicateEnabled;
+        this.nearDuplicateThreshold = nearDuplicateThreshold;
+        this.cache = new BoundedCache<>(maxEntries, Duration.ofMinutes(ttlMinutes));
+        this.cache.setRemovalListener(this::unlink);
+
+        embeddingStore.addRemovalListener(this::invalidateChunks);
+
+        this.exactHits = Counter.builder("chat.response.cache.requests").tag("result", "hit")
+                .description("Chat response cache lookups").register(meterRegistry);
+        this.nearHits = Counter.builder("chat.response.cache.requests").tag("result", "near_hit")
+                .description("Chat response cache lookups").register(meterRegistry);
+        this.misses = Counter.builder("chat.response.cache.requests").tag("result", "miss")
+                .description("Chat response cache lookups").register(meterRegistry);
+        this.invalidations = Counter.builder("chat.response.cache.invalidations")
+                .description("Cached answers dropped because their chunks changed").register(meterRegistry);
+        Gauge.builder("chat.response.cache.size", cache, BoundedCache::size)
+                .description("Cached chat answers").register(meterRegistry);
+        FunctionCounter.builder("chat.response.cache.evictions", cache, BoundedCache::getEvictions)
+                .description("Cached answers evicted by size or TTL").register(meterRegistry);
+    }
+
+    /**
+     * Look up the answer for a question given what retrieval selected for it.
+     */
+    public Lookup lookup(ChatRequest request, Retrieval retrieval) {
+        String normalizedQuery = normalize(request.getMessage());
+        Set<String> chunkIds = new TreeSet<>();
+        for (DocumentEmbedding chunk : retrieval.getChunks()) {
+            chunkIds.add(chunk.getId());
+        }
+        String chunkKey = mode(request) + "|" + String.join(",", chunkIds);
+        Lookup lookup = new Lookup(normalizedQuery + "|" + chunkKey, chunkKey, chunkIds,
+                retrieval.getQueryVector(), retrieval.getGeneration());
+        if (!enabled) {
+            return lookup;
+        }
+
+        lookup.hit = cache.get(lookup.key);
+        if (lookup.hit != null) {
+            exactHits.increment();
+            return lookup;
+        }
+
+        if (nearDuplicateEnabled && lookup.queryVector != null) {
+            Set<String> sameContext = keysByChunkKey.get(chunkKey);
+            if (sameContext != null && !sameContext.isEmpty()) {
+                CachedResponse best = nearestCached(sameContext, lookup.queryVector);
+                if (best != null) {
+                    lookup.hit = best;
+                    nearHits.increment();
+                    return lookup;
+                }
+            }
+        }
+        misses.increment();
+        return lookup;
+    }
+
+    /**
+     * Store a freshly generated answer for a missed lookup.
+     * Skipped when the store changed since retrieval: a chunk the answer was built on may already
+     * be gone, and its invalidation ran before this entry existed.
+     */
+    public void put(Lookup lookup, String response, List<String> sourceFiles) {
+        if (!enabled || lookup.isHit() || response == null) {
+            return;
+        }
+        CachedResponse entry = new CachedResponse(response, sourceFiles, lookup.chunkIds, lookup.chunkKey,
+                nearDuplicateEnabled ? lookup.queryVector : null);
+        synchronized (cache) {
+            // The store bumps its generation before notifying removals, so either this check sees
+            // the change or the invalidation (which takes the same lock) sees this entry
+            if (!lookup.chunkIds.isEmpty() && embeddingStore.generation() != lookup.generation) {
+                logger.debug("Index changed while generating, not caching answer for {}", lookup.key);
+                return;
+            }
+            cache.put(lookup.key, entry);
+            for (String chunkId : entry.chunkIds) {
+                keysByChunkId.computeIfAbsent(chunkId, k -> ConcurrentHashMap.newKeySet()).add(lookup.key);
+            }
+            keysByChunkKey.computeIfAbsent(entry.chunkKey, k -> ConcurrentHashMap.newKeySet()).add(lookup.key);
+        }
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    private CachedResponse nearestCached(Set<String> keys, float[] queryVector) {
+        if (queryVector == null) {
+            return null;
+        }
+        CachedResponse best = null;
+        double bestSimilarity = nearDuplicateThreshold;
+        for (String key : keys) {
+            CachedResponse candidate = cache.peek(key);
+            if (candidate == null || candidate.queryVector == null || candidate.queryVector.length != queryVector.length) {
+                continue;
+            }
+            double similarity = 0.0;
+            for (int i = 0; i < queryVector.length; i++) {
+                similarity += queryVector[i] * candidate.queryVector[i];
+            }
+            if (similarity >= bestSimilarity) {
+                bestSimilarity = similarity;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private void invalidateChunks(Collection<String> chunkIds) {
+        int removed = 0;
+        for (String chunkId : chunkIds) {
+            Set<String> keys = keysByChunkId.get(chunkId);
+            if (keys == null) continue;
+            for (String key : List.copyOf(keys)) {
+                if (cache.remove(key) != null) removed++;
+            }
+        }
+        if (removed > 0) {
+            invalidations.increment(removed);
+            logger.info("Invalidated {} cached chat responses after index changes", removed);
+        }
+    }
+
+    // Removal listener: runs under the cache lock for every entry leaving the cache
+    private void unlink(String key, CachedResponse entry) {
+        for (String chunkId : entry.chunkIds) {
+            Set<String> keys = keysByChunkId.get(chunkId);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) keysByChunkId.remove(chunkId, keys);
+            }
+        }
+        Set<String> sameContext = keysByChunkKey.get(entry.chunkKey);
+        if (sameContext != null) {
+            sameContext.remove(key);
+            if (sameContext.isEmpty()) keysByChunkKey.remove(entry.chunkKey, sameContext);
+        }
+    }
+
+    /**
+     * Identity of a question for request coalescing: normalized text plus the request flags.
+     */
+    static String coalescingKey(ChatRequest request) {
+        return normalize(request.getMessage()) + "|" + mode(request);
+    }
+
+    private static String mode(ChatRequest request) {
+        return (request.isIncludeContext() ? "c" : "-") + (request.isFastMode() ? "f" : "-") + (request.isFullContent() ? "F" : "-");
+    }
+
+    private static String normalize(String query) {
+        if (query == null) return "";
+        return query.toLowerCase()
+                .replaceAll("[\\p{Punct}&&[^./_-]]", " ")
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
+}
@@ -1,18 +1,28 @@
 package com.aichatbot.service;
 
+import com.aichatbot.cache.SingleFlight;
+import com.aichatbot.config.AppExecutors;
 import com.aichatbot.dto.ChatRequest;
 import com.aichatbot.dto.ChatResponse;
 import com.aichatbot.model.DocumentEmbedding;
+import com.aichatbot.service.DocumentProcessingService.Retrieval;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 public class ChatService {
@@ -21,87 +31,300 @@ public class ChatService {
     
     private final DocumentProcessingService documentProcessingService;
     private final OllamaService ollamaService;
+    private final StreamingOllamaService streamingOllamaService;
+    private final ChatResponseCache responseCache;
+    private final ContextAssembler contextAssembler;
+    private final AppExecutors executors;
+    private final GenerationAdmission admission;
+    
+    // Concurrent identical questions share one retrieval and generation
+    private final SingleFlight<String, ChatResponse> inFlight = new SingleFlight<>();
+    private final Counter coalesced;
+    
+    // Per-request observation (chat.request) with one child per stage (chat.stage), timed at /actuator/metrics
+    private final ObservationRegistry observationRegistry;
+    private final DistributionSummary promptChars;
+    private final DistributionSummary promptTokens;
     
     @Value("${spring.ai.ollama.chat.model}")
     private String modelName;
     
     public ChatService(DocumentProcessingService documentProcessingService,
-                      OllamaService ollamaService) {
+                      OllamaService ollamaService,
+                      StreamingOllamaService streamingOllamaService,
+                      ChatResponseCache responseCache,
+                      ContextAssembler contextAssembler,
+                      AppExecutors executors,
+                      GenerationAdmission admission,
+                      MeterRegistry meterRegistry,
+                      ObservationRegistry observationRegistry) {
         this.documentProcessingService = documentProcessingService;
         this.ollamaService = ollamaService;
+        this.streamingOllamaService = streamingOllamaService;
+        this.responseCache = responseCache;
+        this.contextAssembler = contextAssembler;
+        this.executors = executors;
+        this.admission = admission;
+        this.coalesced = Counter.builder("chat.requests.coalesced")
+                .description("Chat requests that joined an identical in-flight request")
+                .register(meterRegistry);
+        this.observationRegistry = observationRegistry;
+        this.promptChars = DistributionSummary.builder("chat.prompt.size")
+                .description("Prompt length sent to the LLM").baseUnit("characters")
+                .register(meterRegistry);
+        this.promptTokens = DistributionSummary.builder("chat.prompt.tokens")
+                .description("Estimated prompt tokens sent to the LLM").baseUnit("tokens")
+                .register(meterRegistry);
     }
     
     public CompletableFuture<ChatResponse> processMessage(ChatRequest request) {
         long startTime = System.currentTimeMillis();
         String sessionId = request.getSessionId() != null ? request.getSessionId() : generateSessionId();
-    final boolean fastMode = request.isFastMode();
-    final boolean fullContent = request.isFullContent();
         
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                logger.info("Processing message for session: {}", sessionId);
-                
-                // Ultra fast direct file requests still respected
-                if (isDirectFileRequest(request.getMessage())) {
-                    return handleDirectFileRequest(request.getMessage(), sessionId, startTime);
-                }
-                
-                                // Get relevant context if requested - USE HYBRID SEARCH APPROACH
-                List<DocumentEmbedding> relevantChunks = List.of();
-                if (request.isIncludeContext()) {
-                    if (fullContent) {
-                        // Directly load ALL chunks from best matching file for fullContent mode (fast retrieval path)
-                        relevantChunks = documentProcessingService.findBestMatchingFile(request.getMessage());
-                    } else {
-                        // Hybrid search placeholder (file-based scoring)
-                        int maxChunks = fastMode ? 6 : 25;
-                        relevantChunks = documentProcessingService.findSimilarDocumentsHybrid(request.getMessage(), maxChunks, fastMode ? 0.6 : 0.7);
-                    }
-                    
-                    // FALLBACK 1: If hybrid search fails or returns no results, try best file approach
-                    if (relevantChunks.isEmpty() && (!fastMode || fullContent)) { // allow deeper search / fallback
-                        logger.info("Hybrid search returned no results, trying best file approach for: {}", request.getMessage());
-                        relevantChunks = documentProcessingService.findBestMatchingFile(request.getMessage());
+        // Identical questions (same normalized text and flags) in flight at the same time share one answer;
+        // every caller still gets its own session id and timing
+        return inFlight.execute(ChatResponseCache.coalescingKey(request),
+                        () -> answer(request, sessionId, startTime),
+                        () -> {
+                            coalesced.increment();
+                            logger.info("Joined an identical in-flight request for session: {}", sessionId);
+                        })
+                .thenApply(shared -> shared.forSession(sessionId,
+                        shared.isSuccess() ? System.currentTimeMillis() - startTime : shared.getResponseTimeMs()));
+    }
+    
+    /**
+     * Retrieval and prompt building run on the llm executor, the admission wait holds no thread,
+     * and the generation runs on the llm executor again once a slot is granted.
+     */
+    private CompletableFuture<ChatResponse> answer(ChatRequest request, String sessionId, long startTime) {
+        Observation observation = requestObservation(request, "message").start();
+        return submit(() -> prepare(request, sessionId, startTime, observation))
+                .thenCompose(prepared -> prepared.answer != null
+                        ? CompletableFuture.completedFuture(prepared.answer)
+                        : admit(observation, request).thenCompose(permit -> submitHolding(permit,
+                                () -> generate(prepared, sessionId, startTime, observation))))
+                .exceptionally(ex -> failed(ex, sessionId))
+                .whenComplete((response, ex) -> {
+                    observation.lowCardinalityKeyValue("outcome", outcomeOf(response));
+                    observation.stop();
+                });
+    }
+    
+    /**
+     * Prompt for a question, or the answer itself when no generation is needed
+     * (direct file requests, cached answers)
+     */
+    private static final class PreparedPrompt {
+        ChatResponse answer;
+        ChatResponseCache.Lookup cached;
+        ContextAssembler.Context context;
+        String prompt;
+    }
+    
+    private PreparedPrompt prepare(ChatRequest request, String sessionId, long startTime, Observation observation) {
+        logger.info("Processing message for session: {}", sessionId);
+        PreparedPrompt prepared = new PreparedPrompt();
+        
+        // Ultra fast direct file requests still respected
+        if (isDirectFileRequest(request.getMessage())) {
+            prepared.answer = handleDirectFileRequest(request.getMessage(), sessionId, startTime);
+            return prepared;
+        }
+        
+        Retrieval retrieval = stage(observation, "retrieval", () -> retrieveContext(request));
+        
+        // Same question over the same chunks: reuse the earlier answer
+        prepared.cached = stage(observation, "cache", () -> responseCache.lookup(request, retrieval));
+        if (prepared.cached.isHit()) {
+            long responseTime = System.currentTimeMillis() - startTime;
+            logger.info("Served cached response in {}ms", responseTime);
+            prepared.answer = ChatResponse.success(prepared.cached.getHit().getResponse(), sessionId, responseTime,
+                    prepared.cached.getHit().getSourceFiles(), modelName);
+            return prepared;
+        }
+        
+        // Always use LLM for intelligent analysis and extraction
+        // Build context-aware prompt with complete file data and let LLM analyze what to return
+        prepared.context = stage(observation, "context", () -> assembleContext(request.getMessage(), retrieval.getChunks()));
+        prepared.prompt = buildContextualPrompt(request.getMessage(), prepared.context);
+        return prepared;
+    }
+    
+    private ChatResponse generate(PreparedPrompt prepared, String sessionId, long startTime, Observation observation) {
+        String response = stage(observation, "generation", () -> ollamaService.generateResponse(prepared.prompt));
+        long responseTime = System.currentTimeMillis() - startTime;
+        
+        List<String> sourceFiles = sourceFilesOf(prepared.context.getChunks());
+        responseCache.put(prepared.cached, response, sourceFiles);
+        
+        logger.info("Successfully processed message in {}ms", responseTime);
+        
+        return describeContext(ChatResponse.success(response, sessionId, responseTime, sourceFiles, modelName), prepared.context);
+    }
+    
+    /**
+     * Streaming variant of processMessage: tokens are passed to onToken as Ollama produces them and
+     * the future completes with the final response (text, timing, sources). Cancelling the future
+     * aborts the upstream generation, or gives up the place in the admission queue.
+     */
+    public CompletableFuture<ChatResponse> streamMessage(ChatRequest request, Consumer<String> onToken) {
+        long startTime = System.currentTimeMillis();
+        String sessionId = request.getSessionId() != null ? request.getSessionId() : generateSessionId();
+        CompletableFuture<ChatResponse> result = new CompletableFuture<>();
+        Observation observation = requestObservation(request, "stream").start();
+        result.whenComplete((response, ex) -> {
+            observation.lowCardinalityKeyValue("outcome", response != null ? outcomeOf(response) : "cancelled");
+            observation.stop();
+        });
+        
+        submit(() -> prepare(request, sessionId, startTime, observation))
+                .thenCompose(prepared -> {
+                    if (prepared.answer != null) {
+                        if (prepared.answer.isSuccess()) {
+                            onToken.accept(prepared.answer.getResponse());
+                        }
+                        return CompletableFuture.completedFuture(prepared.answer);
                     }
-                    
-                    // FALLBACK 2: If no best file found, try standard search
-                    if (relevantChunks.isEmpty() && (!fastMode || fullContent)) {
-                        logger.info("No best file found, trying standard search for: {}", request.getMessage());
-                        relevantChunks = documentProcessingService.findRelevantChunks(request.getMessage(), 25);
+                    if (result.isDone()) {
+                        return CompletableFuture.completedFuture(null); // client went away during retrieval
                     }
-                    
-                    // FALLBACK 3: Last resort - keyword-based search
-                    if (relevantChunks.isEmpty() && (!fastMode || fullContent)) {
-                        logger.info("No results with standard search, trying keyword fallback for: {}", request.getMessage());
-                        relevantChunks = documentProcessingService.findRelevantChunksByKeywords(request.getMessage(), 50);
+                    CompletableFuture<GenerationAdmission.Permit> admitted = admit(observation, request);
+                    result.whenComplete((response, ex) -> admitted.cancel(true)); // client went away while queued
+                    return admitted.thenCompose(permit -> stream(prepared, permit, onToken, result, sessionId, startTime, observation));
+                })
+                .whenComplete((response, ex) -> {
+                    if (!result.isDone()) {
+                        result.complete(ex == null ? response : failed(ex, sessionId));
                     }
-                }
-                
-                // Always use LLM for intelligent analysis and extraction
-                // Build context-aware prompt with complete file data and let LLM analyze what to return
-                String contextualPrompt = buildContextualPrompt(request.getMessage(), relevantChunks);
-                String response = ollamaService.generateResponse(contextualPrompt);
-                
-                // response already prepared above
-                
-                long responseTime = System.currentTimeMillis() - startTime;
-                
-                // Return sanitized source file references for security (no actual file paths)
-                List<String> sourceFiles = relevantChunks.stream()
-                        .map(this::sanitizeSourceFile)
-                        .distinct()
-                        .limit(1) // Return only the most relevant source file
-                        .toList();
-                
-                logger.info("Successfully processed message in {}ms", responseTime);
-                
-                return ChatResponse.success(response, sessionId, responseTime, sourceFiles, modelName);
-                
-            } catch (Exception e) {
-                logger.error("Failed to process message for session: {}", sessionId, e);
+                });
+        return result;
+    }
+    
+    private CompletableFuture<ChatResponse> stream(PreparedPrompt prepared, GenerationAdmission.Permit permit, Consumer<String> onToken,
+                                                   CompletableFuture<ChatResponse> result, String sessionId, long startTime,
+                                                   Observation observation) {
+        if (result.isDone()) {
+            permit.close(); // admitted just as the client went away
+            return CompletableFuture.completedFuture(null);
+        }
+        Observation generating = stageObservation(observation, "generation").start();
+        CompletableFuture<String> generation = streamingOllamaService.generate(prepared.prompt, onToken);
+        generation.whenComplete((text, ex) -> {
+            permit.close();
+            if (ex != null) generating.error(ex);
+            generating.stop();
+        });
+        result.whenComplete((response, ex) -> generation.cancel(true));
+        
+        return generation.handle((text, ex) -> {
+            if (ex != null) {
+                logger.warn("Streaming failed for session: {}", sessionId, ex);
                 return ChatResponse.error("I apologize, but I encountered an error while processing your request. Please try again.", sessionId);
             }
+            long responseTime = System.currentTimeMillis() - startTime;
+            logger.info("Successfully streamed message in {}ms", responseTime);
+            List<String> sourceFiles = sourceFilesOf(prepared.context.getChunks());
+            responseCache.put(prepared.cached, text, sourceFiles);
+            return describeContext(ChatResponse.success(text, sessionId, responseTime, sourceFiles, modelName), prepared.context);
+        });
+    }
+    
+    /**
+     * Wait for a generation slot, timed as the "admission" stage
+     */
+    private CompletableFuture<GenerationAdmission.Permit> admit(Observation observation, ChatRequest request) {
+        Observation waiting = stageObservation(observation, "admission").start();
+        CompletableFuture<GenerationAdmission.Permit> permit = admission.acquire(request.isFastMode());
+        permit.whenComplete((p, ex) -> {
+            if (ex != null) waiting.error(ex);
+            waiting.stop();
         });
+        return permit;
+    }
+    
+    /**
+     * Run work on the llm executor; a saturated executor fails the future instead of throwing.
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, executors.llm());
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /**
+     * Run a generation on the llm executor, releasing the permit when it ends or cannot be scheduled.
+     */
+    private <T> CompletableFuture<T> submitHolding(GenerationAdmission.Permit permit, Supplier<T> work) {
+        return submit(() -> {
+            try (permit) {
+                return work.get();
+            }
+        }).whenComplete((value, ex) -> permit.close());
+    }
+    
+    /**
+     * Response for a failed request: admission and executor rejections become 429/503 with Retry-After
+     */
+    private ChatResponse failed(Throwable ex, String sessionId) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof RejectedExecutionException) {
+            cause = admission.saturated();
+        }
+        if (cause instanceof GenerationRejectedException rejected) {
+            logger.warn("Generation not admitted for session: {} ({})", sessionId, rejected.getMessage());
+            return ChatResponse.rejected(rejected.getMessage(), sessionId, rejected.getStatus(), rejected.getRetryAfterSeconds());
+        }
+        logger.error("Failed to process message for session: {}", sessionId, cause);
+        return ChatResponse.error("I apologize, but I encountered an error while processing your request. Please try again.", sessionId);
+    }
+    
+    /**
+     * Fit the retrieved chunks into the prompt's token budget
+     */
+    private ContextAssembler.Context assembleContext(String query, List<DocumentEmbedding> relevantChunks) {
+        ContextAssembler.Context context = contextAssembler.assemble(relevantChunks, documentProcessingService.chunkScorer(query));
+        if (context.isTruncated()) {
+            logger.info("Context truncated to {} of {} chunks (~{} tokens)", context.getChunks().size(),
+                    context.getTotalChunks(), context.getEstimatedTokens());
+        }
+        return context;
+    }
+    
+    private ChatResponse describeContext(ChatResponse response, ContextAssembler.Context context) {
+        response.setContextTruncated(context.isTruncated());
+        response.setContextChunksUsed(context.getChunks().size());
+        response.setContextChunksTotal(context.getTotalChunks());
+        response.setContextTokens(context.getEstimatedTokens());
+        return response;
+    }
+    
+    /**
+     * Context chunks for a request: hybrid search (or best file for fullContent), then the
+     * fallbacks, all planned from a single scoring pass over the candidates
+     */
+    private Retrieval retrieveContext(ChatRequest request) {
+        if (!request.isIncludeContext()) {
+            return new Retrieval(List.of(), null, 0);
+        }
+        final boolean fastMode = request.isFastMode();
+        final boolean fullContent = request.isFullContent();
+        int maxChunks = fastMode ? 6 : 25;
+        return documentProcessingService.retrieve(request.getMessage(), fullContent, !fastMode || fullContent,
+                maxChunks, fastMode ? 0.6 : 0.7);
+    }
+    
+    /**
+     * Sanitized source file references for security (no actual file paths)
+     */
+    private List<String> sourceFilesOf(List<DocumentEmbedding> relevantChunks) {
+        return relevantChunks.stream()
+                .map(this::sanitizeSourceFile)
+                .distinct()
+                .limit(1) // Return only the most relevant source file
+                .toList();
     }
     
     /**
@@ -160,8 +383,45 @@ public class ChatService {
         }
     }
 
-    private String buildContextualPrompt(String userQuery, List<DocumentEmbedding> relevantChunks) {
-        if (relevantChunks.isEmpty()) {
+    private Observation requestObservation(ChatRequest request, String endpoint) {
+        return Observation.createNotStarted("chat.request", observationRegistry)
+                .contextualName("chat " + endpoint)
+                .lowCardinalityKeyValue("endpoint", endpoint)
+                .lowCardinalityKeyValue("fast", String.valueOf(request.isFastMode()))
+                .lowCardinalityKeyValue("full.content", String.valueOf(request.isFullContent()));
+    }
+    
+    private Observation stageObservation(Observation parent, String stage) {
+        return Observation.createNotStarted("chat.stage", observationRegistry)
+                .contextualName("chat " + stage)
+                .parentObservation(parent)
+                .lowCardinalityKeyValue("stage", stage);
+    }
+    
+    /**
+     * Run one pipeline stage as a child observation of the request
+     */
+    private <T> T stage(Observation parent, String stage, Supplier<T> work) {
+        return stageObservation(parent, stage).observe(work);
+    }
+    
+    private static String outcomeOf(ChatResponse response) {
+        if (response.isSuccess()) return "success";
+        return response.isRejected() ? "rejected" : "error";
+    }
+    
+    /**
+     * Prompt for the LLM; its size is recorded as chat.prompt.size / chat.prompt.tokens
+     */
+    private String buildContextualPrompt(String userQuery, ContextAssembler.Context context) {
+        String prompt = formatContextualPrompt(userQuery, context);
+        promptChars.record(prompt.length());
+        promptTokens.record(ContextAssembler.estimateTokens(prompt));
+        return prompt;
+    }
+    
+    private String formatContextualPrompt(String userQuery, ContextAssembler.Context context) {
+        if (context.getChunks().isEmpty()) {
             return String.format("""
                 USER QUESTION: %s
                 
@@ -177,31 +437,8 @@ public class ChatService {
         // Check if user is asking "how to create/setup" something and needs prerequisites
         boolean isHowToCreateQuery = userQuery.toLowerCase().matches(".*\\b(how to|how do|how can|steps to|process for|method for).*(create|setup|install|configure|build|deploy|establish)\\b.*");
         
-        StringBuilder contextBuilder = new StringBuilder();
-        
-        // Group chunks by file and include ALL chunks from the best matching file(s)
-        Map<String, List<DocumentEmbedding>> chunksByFile = relevantChunks.stream()
-                .collect(Collectors.groupingBy(DocumentEmbedding::getFilePath));
-        
-        // Process all files (since findBestMatchingFile already returns content from single best file)
-        for (Map.Entry<String, List<DocumentEmbedding>> fileEntry : chunksByFile.entrySet()) {
-            String filePath = fileEntry.getKey();
-            List<DocumentEmbedding> fileChunks = fileEntry.getValue();
-            
-            contextBuilder.append("\n--- Content from: ").append(filePath).append(" ---\n");
-            
-            // Sort chunks by index to maintain original order and include ALL chunks
-            fileChunks.stream()
-                    .filter(chunk -> chunk.getContentChunk() != null && chunk.getContentChunk().length() > 20)
-                    .sorted((a, b) -> Integer.compare(
-                        a.getChunkIndex() != null ? a.getChunkIndex() : 0,
-                        b.getChunkIndex() != null ? b.getChunkIndex() : 0))
-                    .forEach(chunk -> {
-                        contextBuilder.append(chunk.getContentChunk()).append("\n");
-                    });
-        }
-        
-        String contextContent = contextBuilder.toString();
+        // Highest-value chunks (with neighbours) of the matched files, within the token budget
+        String contextContent = context.getText();
         
         // Check if prerequisites exist in the content
         boolean hasPrerequisites = contextContent.toLowerCase().contains("prerequisite") || 
@@ -0,0 +1,174 @@
+package com.aichatbot.service;
+
+import com.aichatbot.model.DocumentEmbedding;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Builds the documentation context of a prompt within a token budget.
+ * - Token counts are estimated from text length (about 4 characters per token)
+ * - When everything fits, all chunks are used as before
+ * - Otherwise the highest-scoring chunks are taken first, each with its neighbouring chunks
+ *   for continuity, until the budget is spent; skipped ranges are marked with [...]
+ */
+@Component
+public class ContextAssembler {
+
+    private static final int CHARS_PER_TOKEN = 4;
+
+    // Chunks this short carry no useful content (headings, separators)
+    private static final int MIN_CHUNK_CHARS = 20;
+
+    /**
+     * Assembled context and how much of the retrieved material it holds.
+     */
+    public static final class Context {
+        private final String text;
+        private final List<DocumentEmbedding> chunks;
+        private final int estimatedTokens;
+        private final int totalChunks;
+        private final boolean truncated;
+
+        Context(String text, List<DocumentEmbedding> chunks, int estimatedTokens, int totalChunks, boolean truncated) {
+            this.text = text;
+            this.chunks = chunks;
+            this.estimatedTokens = estimatedTokens;
+            this.totalChunks = totalChunks;
+            this.truncated = truncated;
+        }
+
+        public String getText() { return text; }
+        /** Chunks included in the context, in document order */
+        public List<DocumentEmbedding> getChunks() { return chunks; }
+        public int getEstimatedTokens() { return estimatedTokens; }
+        public int getTotalChunks() { return totalChunks; }
+        public boolean isTruncated() { return truncated; }
+    }
+
+    private final int maxTokens;
+    private final int neighbours;
+
+    public ContextAssembler(@Value("${chat.context.max-tokens:5000}") int maxTokens,
+                            @Value("${chat.context.neighbours:1}") int neighbours) {
+        this.maxTokens = maxTokens;
+        this.neighbours = Math.max(0, neighbours);
+    }
+
+    public static int estimateTokens(String text) {
+        return text == null ? 0 : (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    /**
+     * @param scorer query relevance of a chunk, used to choose chunks when not everything fits
+     */
+    public Context assemble(List<DocumentEmbedding> retrieved, ToDoubleFunction<DocumentEmbedding> scorer) {
+        // Usable chunks grouped by file (in retrieval order), each file in chunk order
+        Map<String, List<DocumentEmbedding>> byFile = new LinkedHashMap<>();
+        for (DocumentEmbedding chunk : retrieved) {
+            if (chunk.getContentChunk() != null && chunk.getContentChunk().length() > MIN_CHUNK_CHARS) {
+                byFile.computeIfAbsent(chunk.getFilePath(), k -> new ArrayList<>()).add(chunk);
+            }
+        }
+        byFile.values().forEach(chunks -> chunks.sort(Comparator.comparingInt(ContextAssembler::indexOf)));
+
+        int total = 0;
+        int totalChunks = 0;
+        for (Map.Entry<String, List<DocumentEmbedding>> entry : byFile.entrySet()) {
+            total += estimateTokens(header(entry.getKey()));
+            for (DocumentEmbedding chunk : entry.getValue()) {
+                total += estimateTokens(chunk.getContentChunk()) + 1;
+                totalChunks++;
+            }
+        }
+        if (maxTokens <= 0 || total <= maxTokens) {
+            return render(byFile, null, totalChunks, false);
+        }
+
+        // Highest-scoring chunks first, pulling in their neighbours while the budget lasts
+        Map<DocumentEmbedding, Double> scores = new HashMap<>();
+        List<DocumentEmbedding> ranked = new ArrayList<>();
+        byFile.values().forEach(ranked::addAll);
+        ranked.forEach(chunk -> scores.put(chunk, scorer.applyAsDouble(chunk)));
+        ranked.sort((a, b) -> Double.compare(scores.get(b), scores.get(a)));
+
+        Set<DocumentEmbedding> selected = new HashSet<>();
+        Set<String> filesWithHeader = new HashSet<>();
+        int[] used = {0};
+        for (DocumentEmbedding chunk : ranked) {
+            if (!take(chunk, selected, filesWithHeader, used)) {
+                continue;
+            }
+            List<DocumentEmbedding> fileChunks = byFile.get(chunk.getFilePath());
+            int position = fileChunks.indexOf(chunk);
+            for (int d = 1; d <= neighbours; d++) {
+                if (position - d >= 0) take(fileChunks.get(position - d), selected, filesWithHeader, used);
+                if (position + d < fileChunks.size()) take(fileChunks.get(position + d), selected, filesWithHeader, used);
+            }
+        }
+        return render(byFile, selected, totalChunks, true);
+    }
+
+    // Add a chunk (and its file header on first use) if it still fits the budget
+    private boolean take(DocumentEmbedding chunk, Set<DocumentEmbedding> selected, Set<String> filesWithHeader, int[] used) {
+        if (selected.contains(chunk)) {
+            return false;
+        }
+        int cost = estimateTokens(chunk.getContentChunk()) + 1;
+        if (!filesWithHeader.contains(chunk.getFilePath())) {
+            cost += estimateTokens(header(chunk.getFilePath()));
+        }
+        if (used[0] + cost > maxTokens) {
+            return false;
+        }
+        used[0] += cost;
+        selected.add(chunk);
+        filesWithHeader.add(chunk.getFilePath());
+        return true;
+    }
+
+    private Context render(Map<String, List<DocumentEmbedding>> byFile, Set<DocumentEmbedding> selected,
+                           int totalChunks, boolean truncated) {
+        StringBuilder text = new StringBuilder();
+        List<DocumentEmbedding> included = new ArrayList<>();
+        for (Map.Entry<String, List<DocumentEmbedding>> entry : byFile.entrySet()) {
+            List<DocumentEmbedding> fileChunks = entry.getValue();
+            if (selected != null && fileChunks.stream().noneMatch(selected::contains)) {
+                continue;
+            }
+            text.append(header(entry.getKey()));
+            boolean skipped = false;
+            for (DocumentEmbedding chunk : fileChunks) {
+                if (selected != null && !selected.contains(chunk)) {
+                    skipped = true;
+                    continue;
+                }
+                if (skipped) {
+                    text.append("[...]\n");
+                }
+                skipped = false;
+                text.append(chunk.getContentChunk()).append("\n");
+                included.add(chunk);
+            }
+        }
+        String context = text.toString();
+        return new Context(context, included, estimateTokens(context), totalChunks, truncated);
+    }
+
+    private static String header(String filePath) {
+        return "\n--- Content from: " + filePath + " ---\n";
+    }
+
+    private static int indexOf(DocumentEmbedding chunk) {
+        return chunk.getChunkIndex() != null ? chunk.getChunkIndex() : 0;
+    }
+}
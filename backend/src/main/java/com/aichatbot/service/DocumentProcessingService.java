@@ -1,14 +1,22 @@
 package com.aichatbot.service;
 
+import com.aichatbot.config.AppExecutors;
 import com.aichatbot.model.DocumentEmbedding;
+import com.aichatbot.model.NormalizedChunk;
 import com.aichatbot.repository.EmbeddingStore;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 
 @Service
@@ -16,76 +24,155 @@ public class DocumentProcessingService {
     private static final Logger logger = LoggerFactory.getLogger(DocumentProcessingService.class);
     
     private final EmbeddingStore embeddingStore;
+    private final OllamaEmbeddingService embeddingService;
+    private final Scorer scorer;
+    private final SearchExecutor searchExecutor;
+    private final AppExecutors executors;
+    private final MeterRegistry meterRegistry;
+    private final Timer scanTimer;
+    private final DistributionSummary scannedCandidates;
     
-    // Inner class for scoring
-    private static class ScoredEmbedding {
-        final DocumentEmbedding embedding;
-        final double score;
-        
-        ScoredEmbedding(DocumentEmbedding embedding, double score) {
-            this.embedding = embedding;
-            this.score = score;
+    // Reciprocal rank fusion constant for hybrid search (standard value from the RRF paper)
+    private static final int RRF_K = 60;
+    
+    // Chunk scores per file that make up the file's strength (top-K average avoids dilution in long files)
+    private static final int FILE_TOP_CHUNKS = 5;
+    
+    public DocumentProcessingService(EmbeddingStore embeddingStore, OllamaEmbeddingService embeddingService,
+                                     Bm25Scorer bm25Scorer, SearchExecutor searchExecutor, AppExecutors executors,
+                                     MeterRegistry meterRegistry, @Value("${rag.scorer:bm25}") String scorerName) {
+        this.embeddingStore = embeddingStore;
+        this.embeddingService = embeddingService;
+        this.searchExecutor = searchExecutor;
+        this.executors = executors;
+        this.meterRegistry = meterRegistry;
+        this.scanTimer = Timer.builder("rag.retrieval.scan")
+                .description("Lexical scoring pass over the candidate chunks").register(meterRegistry);
+        this.scannedCandidates = DistributionSummary.builder("rag.retrieval.candidates")
+                .description("Candidate chunks scored per retrieval").register(meterRegistry);
+        if ("legacy".equalsIgnoreCase(scorerName)) {
+            this.scorer = new LegacyScorer();
+        } else {
+            if (!"bm25".equalsIgnoreCase(scorerName)) {
+                logger.warn("Unknown rag.scorer '{}', using bm25", scorerName);
+            }
+            this.scorer = bm25Scorer;
         }
+        logger.info("Lexical ranking uses the {} scorer", scorer.getName());
     }
     
-    public DocumentProcessingService(EmbeddingStore embeddingStore) {
-        this.embeddingStore = embeddingStore;
+    /**
+     * The original hand-tuned ranking (constant bonuses, semantic boosts, filename boosts).
+     * Kept selectable with rag.scorer=legacy for A/B comparison against BM25.
+     */
+    private final class LegacyScorer implements Scorer {
+        @Override
+        public String getName() {
+            return "legacy";
+        }
+        
+        @Override
+        public QueryScorer prepare(String query) {
+            String normalizedQuery = query.toLowerCase().trim();
+            String[] queryWords = normalizedQuery.split("\\s+");
+            PreparedQuery prepared = new PreparedQuery(queryWords, normalizedQuery);
+            return new QueryScorer() {
+                @Override
+                public double score(DocumentEmbedding chunk) {
+                    return calculateRelevanceScore(chunk.getNormalized(), prepared);
+                }
+                
+                @Override
+                public double fileBonus(String filePath) {
+                    return calculateFilenameRelevance(filePath, queryWords);
+                }
+            };
+        }
     }
     
     /**
-     * Find the single best matching file and return ALL content from that file
+     * Find the single best matching file and return ALL content from that file.
+     * - Files are ranked from the candidate chunks only (those sharing a query term)
+     * - The answer is then read from the store's per-file index, so chunks of the winning
+     *   file that do not mention any query term are included too
      */
     public List<DocumentEmbedding> findBestMatchingFile(String query) {
         logger.info("Finding best matching file for: {}", query);
         
-    List<DocumentEmbedding> allEmbeddings = embeddingStore.findAll();
+        List<FileScore> ranking = rankFiles(query);
+        
+        if (!ranking.isEmpty()) {
+            String bestFilePath = ranking.get(0).filePath;
+            logger.info("Best matching file: {} ", bestFilePath);
+            // Candidates are a subset of the file: fetch every chunk of it, ordered by chunk index
+            return allChunksOf(bestFilePath);
+        }
+        
+        logger.warn("No matching file found for query: {}", query);
+        return Collections.emptyList();
+    }
+    
+    /**
+     * Rank candidate files by lexical relevance, best first
+     */
+    private List<FileScore> rankFiles(String query) {
         String normalizedQuery = query.toLowerCase().trim();
         String[] queryWords = normalizedQuery.split("\\s+");
         
-        // Group all chunks by file path and calculate file-level scores
-        Map<String, List<DocumentEmbedding>> fileGroups = allEmbeddings.stream()
-                .collect(Collectors.groupingBy(DocumentEmbedding::getFilePath));
+        long start = System.nanoTime();
+        Scorer.QueryScorer queryScorer = scorer.prepare(query);
         
-        // Calculate file-level score using Top-K chunk scores to avoid dilution in long files
-        String bestFilePath = fileGroups.entrySet().stream()
-                .map(entry -> {
-                    String filePath = entry.getKey();
-                    List<DocumentEmbedding> chunks = entry.getValue();
-                    
-                    // Compute individual chunk scores
-                    List<Double> scores = chunks.stream()
-                        .map(chunk -> calculateRelevanceScore(
-                            chunk.getContentChunk(),
-                            chunk.getFilePath(),
-                            queryWords,
-                            normalizedQuery
-                        ))
-                        .sorted(Comparator.reverseOrder())
-                        .collect(Collectors.toList());
-
-                    // Use Top-K average (e.g., top 5) to represent file strength
-                    int k = Math.min(5, scores.size());
-                    double topKAvg = scores.stream().limit(k).mapToDouble(Double::doubleValue).average().orElse(0.0);
-                    
-                    // Bonus for file name matching
-                    double fileNameBonus = calculateFilenameRelevance(filePath, queryWords);
-
-                    return new FileScore(filePath, topKAvg + fileNameBonus);
-                })
-                .max(Comparator.comparing(fs -> fs.score))
-                .map(fs -> fs.filePath)
-                .orElse(null);
+        // Score candidate partitions in parallel, keeping only the top chunk scores per file
+        FileTopScores fileScores = searchExecutor.score(candidates(queryWords), FileTopScores::new,
+                (acc, chunk) -> acc.offer(chunk.getFilePath(), queryScorer.score(chunk)),
+                FileTopScores::merge);
         
-        if (bestFilePath != null) {
-            logger.info("Best matching file: {} ", bestFilePath);
-            // Return ALL chunks from the best matching file, ordered by chunk index
-            return fileGroups.get(bestFilePath).stream()
-                    .sorted(Comparator.comparing(DocumentEmbedding::getChunkIndex))
-                    .collect(Collectors.toList());
+        List<FileScore> ranking = rankFiles(fileScores, queryScorer);
+        logger.debug("Ranked {} files with {} in {} ms", ranking.size(), scorer.getName(), (System.nanoTime() - start) / 1_000_000);
+        return ranking;
+    }
+    
+    /**
+     * Top chunk scores per file path, accumulated per scoring partition
+     */
+    private static final class FileTopScores {
+        final Map<String, TopK<Void>> byFile = new HashMap<>();
+        
+        void offer(String filePath, double score) {
+            byFile.computeIfAbsent(filePath, k -> new TopK<>(FILE_TOP_CHUNKS)).offer(score, null);
         }
         
-        logger.warn("No matching file found for query: {}", query);
-        return Collections.emptyList();
+        FileTopScores merge(FileTopScores other) {
+            other.byFile.forEach((filePath, scores) -> byFile.merge(filePath, scores, TopK::merge));
+            return this;
+        }
+    }
+    
+    /**
+     * File ranking from per-file top chunk scores, best first
+     */
+    private List<FileScore> rankFiles(FileTopScores fileScores, Scorer.QueryScorer queryScorer) {
+        List<FileScore> ranking = new ArrayList<>(fileScores.byFile.size());
+        fileScores.byFile.forEach((filePath, scores) -> {
+            // Top-K average represents file strength
+            double topKAvg = scores.size() == 0 ? 0.0 : scores.sum() / scores.size();
+            
+            // Bonus for file name matching (BM25 already scores the path as a field)
+            double fileNameBonus = queryScorer.fileBonus(filePath);
+            
+            ranking.add(new FileScore(filePath, topKAvg + fileNameBonus));
+        });
+        ranking.sort((a, b) -> Double.compare(b.score, a.score));
+        return ranking;
+    }
+    
+    /**
+     * All chunks of a file from the store (not just the scored candidates), ordered by chunk index
+     */
+    private List<DocumentEmbedding> allChunksOf(String filePath) {
+        return embeddingStore.findByFilePath(filePath).stream()
+                .sorted(Comparator.comparing(DocumentEmbedding::getChunkIndex, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .collect(Collectors.toList());
     }
     
     /**
@@ -185,30 +272,21 @@ public class DocumentProcessingService {
     public List<DocumentEmbedding> findRelevantChunks(String query, int maxResults) {
         logger.info("Searching for relevant chunks for query: {}", query);
         
-    List<DocumentEmbedding> allEmbeddings = embeddingStore.findAll();
-        if (allEmbeddings.isEmpty()) {
-            logger.warn("No embeddings found in repository");
-            return new ArrayList<>();
-        }
-        
         String normalizedQuery = query.toLowerCase().trim();
         String[] queryWords = normalizedQuery.split("\\s+");
         
-        return allEmbeddings.stream()
-                .map(embedding -> {
-                    double score = calculateRelevanceScore(
-                        embedding.getContentChunk(), 
-                        embedding.getFilePath(), 
-                        queryWords, 
-                        normalizedQuery
-                    );
-                    return new ScoredEmbedding(embedding, score);
-                })
-                .filter(scored -> scored.score > 0.1) // Filter very low scores
-                .sorted((a, b) -> Double.compare(b.score, a.score))
-                .limit(maxResults)
-                .map(scored -> scored.embedding)
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        Scorer.QueryScorer queryScorer = scorer.prepare(query);
+        
+        List<DocumentEmbedding> results = topScored(queryWords,
+                queryScorer::score,
+                0.1, // Filter very low scores
+                maxResults);
+        logger.debug("Scored chunks with {} in {} ms", scorer.getName(), (System.nanoTime() - start) / 1_000_000);
+        if (results.isEmpty()) {
+            logger.warn("No relevant chunks found for query: {}", query);
+        }
+        return results;
     }
     
     /**
@@ -217,20 +295,15 @@ public class DocumentProcessingService {
     public List<DocumentEmbedding> findRelevantChunksWithLowerThreshold(String query, int maxResults) {
         logger.info("Performing relaxed threshold search for: {}", query);
         
-    List<DocumentEmbedding> allEmbeddings = embeddingStore.findAll();
         String queryLower = query.toLowerCase();
         String[] queryWords = queryLower.split("\\s+");
         
-        return allEmbeddings.stream()
-                .map(embedding -> {
-                    double score = calculateRelaxedScore(embedding, queryWords, queryLower);
-                    return new ScoredEmbedding(embedding, score);
-                })
-                .filter(scored -> scored.score > 0.001) // Very low threshold for maximum coverage
-                .sorted((a, b) -> Double.compare(b.score, a.score))
-                .limit(maxResults)
-                .map(scored -> scored.embedding)
-                .collect(Collectors.toList());
+        PreparedQuery prepared = new PreparedQuery(queryWords, queryLower);
+        
+        return topScored(queryWords,
+                embedding -> calculateRelaxedScore(embedding.getNormalized(), prepared),
+                0.001, // Very low threshold for maximum coverage
+                maxResults);
     }
     
     /**
@@ -240,64 +313,133 @@ public class DocumentProcessingService {
     public List<DocumentEmbedding> findRelevantChunksByKeywords(String query, int maxResults) {
         logger.info("Performing keyword-based fallback search for: {}", query);
         
-    List<DocumentEmbedding> allEmbeddings = embeddingStore.findAll();
         String[] keywords = query.toLowerCase().split("\\s+");
         
-        return allEmbeddings.stream()
-                .map(embedding -> {
-                    double score = calculateKeywordScore(embedding, keywords);
-                    return new ScoredEmbedding(embedding, score);
-                })
-                .filter(scored -> scored.score > 0.5)
-                .sorted((a, b) -> Double.compare(b.score, a.score))
-                .limit(maxResults)
-                .map(scored -> scored.embedding)
-                .collect(Collectors.toList());
+        PreparedQuery prepared = new PreparedQuery(keywords, query.toLowerCase());
+        
+        return topScored(keywords, embedding -> calculateKeywordScore(embedding.getNormalized(), prepared), 0.5, maxResults);
+    }
+    
+    /**
+     * Relevance of individual chunks to a query, using the configured scorer
+     */
+    public ToDoubleFunction<DocumentEmbedding> chunkScorer(String query) {
+        return scorer.prepare(query)::score;
+    }
+    
+    /**
+     * Score the candidate chunks in parallel partitions and return the best ones above the threshold
+     */
+    private List<DocumentEmbedding> topScored(String[] queryWords, ToDoubleFunction<DocumentEmbedding> scorer,
+                                              double threshold, int maxResults) {
+        return searchExecutor.score(candidates(queryWords),
+                () -> new TopK<DocumentEmbedding>(maxResults, threshold),
+                (top, embedding) -> top.offer(scorer.applyAsDouble(embedding), embedding),
+                TopK::merge).toSortedList();
+    }
+    
+    /**
+     * Query-side strings and flags, derived once per query and shared by every chunk scored for it
+     */
+    private final class PreparedQuery {
+        final String lowerQuery;
+        
+        // Relevance scoring: query words longer than 2 chars (after dropping 1-char words)
+        final int wordCount;
+        final String[] words;
+        final String[] spaced, leading, trailing, normalizedForms;
+        final String[] phrases;
+        final String[] extraExpanded; // expansions that are not query words themselves
+        final boolean asksCreate, asksOrgCreate, asksTablespace, asksDatabase, asksConfig, asksMaximo;
+        
+        // Relaxed and keyword scoring: expansions of the raw query words
+        final String[] expanded;
+        final String[] expandedSpaced, expandedLeading, expandedTrailing, expandedPrefixes;
+        final boolean relaxedDatabase;
+        
+        PreparedQuery(String[] queryWords, String fullQuery) {
+            lowerQuery = fullQuery.toLowerCase();
+            
+            String[] normalizedQueryWords = Arrays.stream(queryWords)
+                    .map(String::toLowerCase)
+                    .map(String::trim)
+                    .filter(word -> !word.isEmpty() && word.length() > 1)
+                    .toArray(String[]::new);
+            wordCount = normalizedQueryWords.length;
+            words = Arrays.stream(normalizedQueryWords).filter(word -> word.length() > 2).toArray(String[]::new);
+            spaced = Arrays.stream(words).map(w -> " " + w + " ").toArray(String[]::new);
+            leading = Arrays.stream(words).map(w -> w + " ").toArray(String[]::new);
+            trailing = Arrays.stream(words).map(w -> " " + w).toArray(String[]::new);
+            normalizedForms = Arrays.stream(words).map(DocumentProcessingService.this::normalizeWord).toArray(String[]::new);
+            
+            List<String> adjacent = new ArrayList<>();
+            for (int i = 0; i < normalizedQueryWords.length - 1; i++) {
+                adjacent.add(normalizedQueryWords[i] + " " + normalizedQueryWords[i + 1]);
+            }
+            phrases = adjacent.toArray(new String[0]);
+            
+            Set<String> queryWordSet = new HashSet<>(Arrays.asList(normalizedQueryWords));
+            extraExpanded = expandKeywords(normalizedQueryWords).stream()
+                    .filter(word -> word.length() > 2 && !queryWordSet.contains(word))
+                    .toArray(String[]::new);
+            
+            asksCreate = containsAnyOf(lowerQuery, Arrays.asList("how to create", "create", "creating", "setup", "configure"));
+            asksOrgCreate = containsAnyOf(lowerQuery, Arrays.asList(
+                "how to create organization",
+                "create organization",
+                "creating organization",
+                "create org",
+                "creating org"
+            ));
+            asksTablespace = containsAnyOf(lowerQuery, Arrays.asList("tablespace", "table space", "tablespaces"));
+            asksDatabase = lowerQuery.contains("tablespace") || lowerQuery.contains("database") || lowerQuery.contains("db2");
+            asksConfig = lowerQuery.contains("config") || lowerQuery.contains("prerequisite");
+            asksMaximo = containsAnyOf(lowerQuery, Arrays.asList("maximo", "mas"));
+            
+            expanded = expandKeywords(queryWords).stream().filter(word -> word.length() > 2).toArray(String[]::new);
+            expandedSpaced = Arrays.stream(expanded).map(w -> " " + w + " ").toArray(String[]::new);
+            expandedLeading = Arrays.stream(expanded).map(w -> w + " ").toArray(String[]::new);
+            expandedTrailing = Arrays.stream(expanded).map(w -> " " + w).toArray(String[]::new);
+            expandedPrefixes = Arrays.stream(expanded).map(w -> w.substring(0, Math.min(w.length(), 4))).toArray(String[]::new);
+            relaxedDatabase = asksDatabase;
+        }
     }
     
     /**
      * Content-focused relevance scoring (reduced filename bias)
      */
-    private double calculateRelevanceScore(String content, String fileName, String[] queryWords, String fullQuery) {
+    private double calculateRelevanceScore(NormalizedChunk chunk, PreparedQuery q) {
         double score = 0.0;
         
-        String lowerContent = content.toLowerCase();
-        String lowerFileName = fileName.toLowerCase();
-        String lowerQuery = fullQuery.toLowerCase();
-        
-        String[] normalizedQueryWords = Arrays.stream(queryWords)
-                .map(String::toLowerCase)
-                .map(String::trim)
-                .filter(word -> !word.isEmpty() && word.length() > 1)
-                .toArray(String[]::new);
+        String lowerContent = chunk.getContent();
+        String lowerFileName = chunk.getPath();
+        String lowerQuery = q.lowerQuery;
         
         // CONTENT SCORING (Primary importance)
         int wordsInContent = 0;
         double contentScore = 0.0;
         
-        for (String word : normalizedQueryWords) {
-            if (word.length() > 2) {
-                // Exact word boundary match in content
-                if (lowerContent.contains(" " + word + " ") || 
-                    lowerContent.startsWith(word + " ") || 
-                    lowerContent.endsWith(" " + word)) {
-                    contentScore += 15.0;
-                    wordsInContent++;
-                }
-                // Partial word match in content
-                else if (lowerContent.contains(word)) {
-                    contentScore += 8.0;
+        for (int i = 0; i < q.words.length; i++) {
+            String word = q.words[i];
+            // Exact word boundary match in content
+            if (lowerContent.contains(q.spaced[i]) || 
+                lowerContent.startsWith(q.leading[i]) || 
+                lowerContent.endsWith(q.trailing[i])) {
+                contentScore += 15.0;
+                wordsInContent++;
+            }
+            // Partial word match in content
+            else if (lowerContent.contains(word)) {
+                contentScore += 8.0;
+                wordsInContent++;
+            }
+            
+            // Try normalized form if no match
+            if (!lowerContent.contains(word)) {
+                if (lowerContent.contains(q.normalizedForms[i])) {
+                    contentScore += 5.0;
                     wordsInContent++;
                 }
-                
-                // Try normalized form if no match
-                if (!lowerContent.contains(word)) {
-                    String normalized = normalizeWord(word);
-                    if (lowerContent.contains(normalized)) {
-                        contentScore += 5.0;
-                        wordsInContent++;
-                    }
-                }
             }
         }
         
@@ -305,18 +447,15 @@ public class DocumentProcessingService {
         int wordsInFileName = 0;
         double filenameScore = 0.0;
         
-        for (String word : normalizedQueryWords) {
-            if (word.length() > 2) {
-                if (lowerFileName.contains(word)) {
-                    filenameScore += 3.0; // Drastically reduced from 5000+
-                    wordsInFileName++;
-                }
-                
-                // Try normalized form
-                String normalized = normalizeWord(word);
-                if (lowerFileName.contains(normalized)) {
-                    filenameScore += 2.0;
-                }
+        for (int i = 0; i < q.words.length; i++) {
+            if (lowerFileName.contains(q.words[i])) {
+                filenameScore += 3.0; // Drastically reduced from 5000+
+                wordsInFileName++;
+            }
+            
+            // Try normalized form
+            if (lowerFileName.contains(q.normalizedForms[i])) {
+                filenameScore += 2.0;
             }
         }
         
@@ -326,74 +465,55 @@ public class DocumentProcessingService {
         }
         
         // MULTI-WORD PROXIMITY BONUS
-        if (normalizedQueryWords.length > 1) {
-            for (int i = 0; i < normalizedQueryWords.length - 1; i++) {
-                String word1 = normalizedQueryWords[i];
-                String word2 = normalizedQueryWords[i + 1];
-                String phrase = word1 + " " + word2;
-                if (lowerContent.contains(phrase)) {
-                    score += 25.0;
-                }
+        for (String phrase : q.phrases) {
+            if (lowerContent.contains(phrase)) {
+                score += 25.0;
             }
         }
         
         // DOMAIN-SPECIFIC BONUSES AND SEMANTIC SCORING
         double semanticScore = 0.0;
         
-        // Enhanced semantic patterns with keyword expansion
-        Set<String> expandedWords = expandKeywords(normalizedQueryWords);
-        String[] allWords = expandedWords.toArray(new String[0]);
-        
-        // Use expanded keywords for enhanced content scoring
-        for (String word : allWords) {
-            if (word.length() > 2 && !Arrays.asList(normalizedQueryWords).contains(word)) {
-                // Score additional expanded keywords
-                if (lowerContent.contains(word)) {
-                    contentScore += 5.0; // Lower score for expanded keywords
-                    wordsInContent++;
-                }
+        // Score additional expanded keywords
+        for (String word : q.extraExpanded) {
+            if (lowerContent.contains(word)) {
+                contentScore += 5.0; // Lower score for expanded keywords
+                wordsInContent++;
             }
         }
         
-        if (containsAnyOf(lowerQuery, Arrays.asList("how to create", "create", "creating", "setup", "configure"))) {
+        if (q.asksCreate) {
             if (containsAnyOf(lowerContent, Arrays.asList("create", "setup", "configure", "build", "make", "generate"))) {
                 semanticScore += 30.0; // High weight for creation semantics
             }
         }
 
         // Strong semantic boost for Organization creation queries
-        boolean queryOrgCreate = containsAnyOf(lowerQuery, Arrays.asList(
-            "how to create organization",
-            "create organization",
-            "creating organization",
-            "create org",
-            "creating org"
-        ));
-        if (queryOrgCreate) {
+        if (q.asksOrgCreate) {
             if (containsAnyOf(lowerContent, Arrays.asList("how to create organization", "create organization", "creating organization", "create site", "organization", "site"))) {
                 semanticScore += 60.0; // Very strong signal
             }
         }
         
-        if (containsAnyOf(lowerQuery, Arrays.asList("tablespace", "table space", "tablespaces"))) {
+        if (q.asksTablespace) {
             if (containsAnyOf(lowerContent, Arrays.asList("tablespace", "table space", "maxindex", "maxdata", "db2 create"))) {
                 semanticScore += 40.0; // Very high weight for tablespace content
             }
         }
         
-        if (lowerQuery.contains("tablespace") || lowerQuery.contains("database") || lowerQuery.contains("db2")) {
+        if (q.asksDatabase) {
             if (lowerContent.contains("tablespace") || lowerContent.contains("database") || lowerContent.contains("db2")) {
                 semanticScore += 25.0;
             }
         }
         
-        if (lowerQuery.contains("config") || lowerQuery.contains("prerequisite")) {
+        if (q.asksConfig) {
             if (lowerContent.contains("configuration") || lowerContent.contains("prerequisite") || lowerContent.contains("setup")) {
                 semanticScore += 20.0;
             }
         }
         
-        if (containsAnyOf(lowerQuery, Arrays.asList("maximo", "mas"))) {
+        if (q.asksMaximo) {
             if (containsAnyOf(lowerContent, Arrays.asList("maximo", "mas", "manage"))) {
                 semanticScore += 15.0;
             }
@@ -410,7 +530,7 @@ public class DocumentProcessingService {
         }
         
         // Enhanced bonus for high content match ratio
-        double contentMatchRatio = (double) wordsInContent / Math.max(normalizedQueryWords.length, 1);
+        double contentMatchRatio = (double) wordsInContent / Math.max(q.wordCount, 1);
         if (contentMatchRatio >= 0.7) {
             score += 40.0; // Increased from 30.0
         } else if (contentMatchRatio >= 0.5) {
@@ -423,55 +543,51 @@ public class DocumentProcessingService {
     /**
      * Relaxed scoring for broader search with semantic expansion
      */
-    private double calculateRelaxedScore(DocumentEmbedding embedding, String[] queryWords, String queryLower) {
-        String content = embedding.getContentChunk().toLowerCase();
-        String filePath = embedding.getFilePath().toLowerCase();
+    private double calculateRelaxedScore(NormalizedChunk chunk, PreparedQuery q) {
+        String content = chunk.getContent();
+        String filePath = chunk.getPath();
         
         double score = 0.0;
         
-        // Use keyword expansion for broader coverage
-        Set<String> expandedKeywords = expandKeywords(queryWords);
-        
         // Simple word matching - more forgiving with expanded keywords
-        for (String word : expandedKeywords) {
-            if (word.length() > 2) {
-                // Exact word match in content
-                if (content.contains(" " + word + " ") || content.startsWith(word + " ") || content.endsWith(" " + word)) {
-                    score += 2.0;
-                }
-                // Partial word match in content
-                else if (content.contains(word)) {
-                    score += 1.0;
-                }
-                
-                // Word in filename gets bonus but not overwhelming
-                if (filePath.contains(word)) {
-                    score += 1.5;
-                }
-                
-                // Add fuzzy matching for partial words
-                if (content.contains(word.substring(0, Math.min(word.length(), 4)))) {
-                    score += 0.5; // Small bonus for partial matches
-                }
+        for (int i = 0; i < q.expanded.length; i++) {
+            String word = q.expanded[i];
+            // Exact word match in content
+            if (content.contains(q.expandedSpaced[i]) || content.startsWith(q.expandedLeading[i]) || content.endsWith(q.expandedTrailing[i])) {
+                score += 2.0;
+            }
+            // Partial word match in content
+            else if (content.contains(word)) {
+                score += 1.0;
+            }
+            
+            // Word in filename gets bonus but not overwhelming
+            if (filePath.contains(word)) {
+                score += 1.5;
+            }
+            
+            // Add fuzzy matching for partial words
+            if (content.contains(q.expandedPrefixes[i])) {
+                score += 0.5; // Small bonus for partial matches
             }
         }
         
         // Special scoring for common DB/Maximo terms
         if (content.contains("tablespace") || content.contains("db2") || content.contains("database")) {
-            if (queryLower.contains("tablespace") || queryLower.contains("db2") || queryLower.contains("database")) {
+            if (q.relaxedDatabase) {
                 score += 3.0;
             }
         }
         
         // Special scoring for configuration terms
         if (content.contains("configuration") || content.contains("config") || content.contains("prerequisite")) {
-            if (queryLower.contains("config") || queryLower.contains("prerequisite")) {
+            if (q.asksConfig) {
                 score += 2.0;
             }
         }
         
         // Boost for exact phrase matches
-        if (content.contains(queryLower)) {
+        if (content.contains(q.lowerQuery)) {
             score += 3.0;
         }
         
@@ -479,29 +595,22 @@ public class DocumentProcessingService {
     }
     
     /**
-     * Keyword-based scoring with semantic expansion
+     * Keyword-based scoring with semantic expansion, counting from the precomputed term frequencies
      */
-    private double calculateKeywordScore(DocumentEmbedding embedding, String[] keywords) {
-        String content = embedding.getContentChunk().toLowerCase();
-        String filePath = embedding.getFilePath().toLowerCase();
-        
+    private double calculateKeywordScore(NormalizedChunk chunk, PreparedQuery q) {
         double score = 0.0;
         
-        // Expand keywords with semantic variations
-        Set<String> expandedKeywords = expandKeywords(keywords);
-        
-        for (String keyword : expandedKeywords) {
-            if (keyword.length() > 2) {
-                long contentMatches = countOccurrences(content, keyword);
-                long pathMatches = countOccurrences(filePath, keyword);
-                
-                score += contentMatches * 2.0; // Content matches weighted higher
-                score += pathMatches * 1.0; // Path matches get lower weight
-                
-                // Add fuzzy matching for partial words
-                if (contentMatches == 0 && content.contains(keyword.substring(0, Math.min(keyword.length(), 4)))) {
-                    score += 0.5; // Small bonus for partial matches
-                }
+        for (int i = 0; i < q.expanded.length; i++) {
+            String keyword = q.expanded[i];
+            int contentMatches = chunk.termFrequency(keyword);
+            int pathMatches = chunk.pathTermFrequency(keyword);
+            
+            score += contentMatches * 2.0; // Content matches weighted higher
+            score += pathMatches * 1.0; // Path matches get lower weight
+            
+            // Add fuzzy matching for partial words
+            if (contentMatches == 0 && chunk.getContent().contains(q.expandedPrefixes[i])) {
+                score += 0.5; // Small bonus for partial matches
             }
         }
         
@@ -576,6 +685,18 @@ public class DocumentProcessingService {
         return expanded;
     }
     
+    /**
+     * The chunks sharing at least one expanded query term, served from the store's term index
+     * instead of scanning the whole corpus
+     */
+    private List<DocumentEmbedding> candidates(String[] queryWords) {
+        // Terms of 2 chars or less never contribute to any score, skip them to keep posting lists small
+        Set<String> terms = expandKeywords(queryWords).stream()
+                .filter(term -> term.length() > 2)
+                .collect(Collectors.toSet());
+        return embeddingStore.findCandidates(terms);
+    }
+    
     /**
      * Helper method to check if text contains any of the given phrases
      */
@@ -603,26 +724,138 @@ public class DocumentProcessingService {
     }
     
     /**
-     * Count occurrences of a keyword in text
+     * Every signal of the single retrieval pass, accumulated per scoring partition:
+     * top chunk scores per file, and the best chunks by relevance and by keyword score
+     */
+    private static final class PassResult {
+        final FileTopScores files = new FileTopScores();
+        final TopK<DocumentEmbedding> relevance = new TopK<>(25, 0.1);
+        final TopK<DocumentEmbedding> keyword = new TopK<>(50, 0.5);
+        int scored;
+        
+        PassResult merge(PassResult other) {
+            files.merge(other.files);
+            relevance.merge(other.relevance);
+            keyword.merge(other.keyword);
+            scored += other.scored;
+            return this;
+        }
+    }
+    
+    /**
+     * Chunks selected for a query, with the query vector that was computed for it (null when none was)
+     * and the store generation the selection was made against.
+     */
+    public static final class Retrieval {
+        private final List<DocumentEmbedding> chunks;
+        private final float[] queryVector;
+        private final long generation;
+        
+        public Retrieval(List<DocumentEmbedding> chunks, float[] queryVector, long generation) {
+            this.chunks = chunks;
+            this.queryVector = queryVector;
+            this.generation = generation;
+        }
+        
+        public List<DocumentEmbedding> getChunks() { return chunks; }
+        public float[] getQueryVector() { return queryVector; }
+        public long getGeneration() { return generation; }
+    }
+    
+    /**
+     * Retrieval plan for chat context, replacing the hybrid -> best file -> standard -> keyword chain
+     * of separate scans. Every lexical signal is computed in one pass over the candidates; the
+     * stages then pick from those shared features in the same order as before:
+     * - best file (fullContent) or hybrid fusion of the lexical file ranking with vector neighbours
+     * - when fallbacks are allowed: top chunks by relevance, then top chunks by keyword score
      */
-    private long countOccurrences(String text, String keyword) {
-        if (text == null || keyword == null || keyword.isEmpty()) {
-            return 0;
+    @Cacheable(value = "retrieval-plan-cache", key = "#query + '_' + #fullContent + '_' + #fallbacks + '_' + #limit + '_' + #threshold")
+    public Retrieval retrieve(String query, boolean fullContent, boolean fallbacks, int limit, double threshold) {
+        long generation = embeddingStore.generation();
+        String normalizedQuery = query.toLowerCase().trim();
+        String[] queryWords = normalizedQuery.split("\\s+");
+        
+        long start = System.nanoTime();
+        Scorer.QueryScorer queryScorer = scorer.prepare(query);
+        PreparedQuery keywordQuery = new PreparedQuery(query.toLowerCase().split("\\s+"), query.toLowerCase());
+        
+        // The single scan: every signal for every candidate chunk, partitions scored in parallel
+        PassResult pass = searchExecutor.score(candidates(queryWords), PassResult::new, (acc, chunk) -> {
+            double relevance = queryScorer.score(chunk);
+            acc.files.offer(chunk.getFilePath(), relevance);
+            acc.relevance.offer(relevance, chunk);
+            acc.keyword.offer(calculateKeywordScore(chunk.getNormalized(), keywordQuery), chunk);
+            acc.scored++;
+        }, PassResult::merge);
+        List<FileScore> lexical = rankFiles(pass.files, queryScorer);
+        long scanNanos = System.nanoTime() - start;
+        scanTimer.record(scanNanos, TimeUnit.NANOSECONDS);
+        scannedCandidates.record(pass.scored);
+        logger.debug("Scored {} candidate chunks in one pass with {} in {} ms", pass.scored, scorer.getName(),
+                scanNanos / 1_000_000);
+        
+        String strategy;
+        List<DocumentEmbedding> result;
+        float[] queryVector = null;
+        if (fullContent) {
+            strategy = "full_content";
+            result = lexical.isEmpty() ? Collections.emptyList() : allChunksOf(lexical.get(0).filePath);
+        } else {
+            queryVector = embeddingService.embedQuery(query);
+            if (queryVector == null) {
+                strategy = "lexical_file";
+                result = lexical.isEmpty() ? Collections.emptyList() : allChunksOf(lexical.get(0).filePath);
+            } else {
+                strategy = "hybrid";
+                result = bestFused(query, queryVector, lexical, limit, threshold);
+            }
         }
-        return Arrays.stream(text.split("\\W+"))
-                .filter(word -> word.equalsIgnoreCase(keyword))
-                .count();
+        if (result.isEmpty() && fallbacks) {
+            logger.info("No best file found, using standard relevance for: {}", query);
+            strategy = "relevance";
+            result = pass.relevance.toSortedList();
+            if (result.isEmpty()) {
+                logger.info("No results with standard relevance, using keyword scores for: {}", query);
+                strategy = "keyword";
+                result = pass.keyword.toSortedList();
+            }
+        }
+        
+        // Tagged with the strategy that produced the result (an empty result keeps the last one tried)
+        Timer.builder("rag.retrieval")
+                .description("Retrieval time by the strategy that produced the result")
+                .tag("strategy", strategy)
+                .tag("scorer", scorer.getName())
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("rag.retrieval.results")
+                .description("Chunks returned per retrieval")
+                .tag("strategy", strategy)
+                .register(meterRegistry)
+                .record(result.size());
+        return new Retrieval(result, queryVector, generation);
     }
     
     /**
-     * Process a document and store its embeddings
+     * Process a document and store its embeddings.
+     * The returned future completes once the document's chunks are durable in the store.
      */
     public CompletableFuture<Void> processDocument(String filePath, String content, String repositoryOwner, String repositoryName, String branch) {
-        return CompletableFuture.runAsync(() -> {
+        return processDocument(filePath, content, repositoryOwner, repositoryName, branch, null);
+    }
+    
+    /**
+     * Process a document and replace any chunks previously stored for it.
+     * fileHash (the git blob SHA) is recorded on every chunk for incremental re-indexing.
+     */
+    public CompletableFuture<Void> processDocument(String filePath, String content, String repositoryOwner, String repositoryName,
+                                                   String branch, String fileHash) {
+        return CompletableFuture.supplyAsync(() -> {
             logger.info("Processing document: {}", filePath);
             
             // Split content into chunks
             List<String> chunks = splitIntoChunks(content, 3000); // 3000 char chunks for longer documentation like OpenShift guides
+            List<DocumentEmbedding> embeddings = new ArrayList<>(chunks.size());
             
             for (int i = 0; i < chunks.size(); i++) {
                 String chunk = chunks.get(i);
@@ -634,20 +867,52 @@ public class DocumentProcessingService {
                     embedding.setRepositoryOwner(repositoryOwner);
                     embedding.setRepositoryName(repositoryName);
                     embedding.setBranchName(branch);
+                    embedding.setFileHash(fileHash);
+                    embedding.getNormalized(); // tokenize once at ingest, scoring reuses it
                     
-                    // Save to the configured store (file by default)
-                    embeddingStore.save(embedding);
+                    // Vector for semantic search; null if disabled or Ollama is unavailable
+                    float[] vector = embeddingService.embed(chunk);
+                    if (vector != null) {
+                        embedding.setVector(vector);
+                        embedding.setEmbeddingId(embeddingService.getModelName());
+                    }
+                    
+                    embeddings.add(embedding);
                 }
             }
             
+            if (embeddings.isEmpty() && fileHash != null) {
+                // Nothing to index, but remember the hash so incremental runs skip the file until it changes
+                embeddings.add(DocumentEmbedding.fileMarker(filePath, repositoryOwner, repositoryName, branch, fileHash));
+            }
+            
             logger.info("Processed {} chunks for file: {}", chunks.size(), filePath);
-        });
+            return embeddings;
+        }, executors.indexing())
+                // The previous version stays searchable until the new chunks are built, then both swap in one store call
+                .thenCompose(embeddings -> embeddingStore.replaceFile(repositoryOwner, repositoryName, filePath, embeddings));
+    }
+    
+    /**
+     * File hash per indexed file path of a repository
+     */
+    public Map<String, String> getIndexedFileHashes(String repositoryOwner, String repositoryName) {
+        return embeddingStore.fileHashes(repositoryOwner, repositoryName);
+    }
+    
+    /**
+     * Remove the embeddings of files that no longer exist in a repository
+     */
+    public void deleteFiles(String repositoryOwner, String repositoryName, Collection<String> filePaths) {
+        if (filePaths.isEmpty()) return;
+        embeddingStore.deleteByFilePaths(repositoryOwner, repositoryName, filePaths);
+        logger.info("Deleted embeddings of {} removed files from {}/{}", filePaths.size(), repositoryOwner, repositoryName);
     }
     
     /**
      * Split content into manageable chunks
      */
-    private List<String> splitIntoChunks(String content, int maxChunkSize) {
+    List<String> splitIntoChunks(String content, int maxChunkSize) {
         List<String> chunks = new ArrayList<>();
         
         if (content == null || content.trim().isEmpty()) {
@@ -703,11 +968,52 @@ public class DocumentProcessingService {
     }
 
     /**
-     * Search for similar documents using MongoDB text search
+     * Hybrid search: fuses the lexical file ranking with vector nearest neighbours
+     * (reciprocal rank fusion at file level) and returns all chunks of the winning file.
+     * Falls back to the lexical best file when no vectors are available.
      */
     public List<DocumentEmbedding> findSimilarDocumentsHybrid(String query, int limit, double threshold) {
         logger.info("Searching for documents related to query: {}", query);
-        return findBestMatchingFile(query);
+        
+        float[] queryVector = embeddingService.embedQuery(query);
+        if (queryVector == null) {
+            return findBestMatchingFile(query);
+        }
+        
+        return bestFused(query, queryVector, rankFiles(query), limit, threshold);
+    }
+    
+    /**
+     * Fuse the lexical file ranking with the files of the nearest chunk vectors (RRF) and
+     * return every chunk of the winning file
+     */
+    private List<DocumentEmbedding> bestFused(String query, float[] queryVector, List<FileScore> lexical, int limit, double threshold) {
+        Map<String, Double> fused = new HashMap<>();
+        for (int rank = 0; rank < lexical.size(); rank++) {
+            fused.merge(lexical.get(rank).filePath, 1.0 / (RRF_K + rank + 1), Double::sum);
+        }
+        
+        // Rank files by their best chunk similarity above the threshold
+        List<String> semanticFiles = embeddingStore.nearestNeighbours(queryVector, limit, null).stream()
+                .filter(match -> match.getSimilarity() >= threshold)
+                .map(match -> match.getEmbedding().getFilePath())
+                .distinct()
+                .collect(Collectors.toList());
+        for (int rank = 0; rank < semanticFiles.size(); rank++) {
+            fused.merge(semanticFiles.get(rank), 1.0 / (RRF_K + rank + 1), Double::sum);
+        }
+        
+        String bestFilePath = fused.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+        
+        if (bestFilePath == null) {
+            logger.warn("No matching file found for query: {}", query);
+            return Collections.emptyList();
+        }
+        logger.info("Best hybrid match: {} ({} lexical, {} semantic candidates)", bestFilePath, lexical.size(), semanticFiles.size());
+        return allChunksOf(bestFilePath);
     }
     
     /**
@@ -724,6 +1030,6 @@ public class DocumentProcessingService {
                 logger.warn("Failed to delete existing embeddings for {}/{}", repositoryOwner, repositoryName, e);
             }
             logger.info("Repository reprocessing completed for {}/{}", repositoryOwner, repositoryName);
-        });
+        }, executors.indexing());
     }
 }
@@ -0,0 +1,227 @@
+package com.aichatbot.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control in front of Ollama generations.
+ * - At most llm.admission.max-concurrent generations run at once
+ * - Further requests wait in a bounded queue, priority (fastMode) requests ahead of the rest,
+ *   first come first served within a class
+ * - A full queue is rejected at once (429), a request still queued after
+ *   llm.admission.queue-timeout-seconds gives up (503); both carry a Retry-After estimate
+ *   derived from the recent average generation time
+ * - Waiting does not hold a thread: acquire returns a future completed when a slot frees up,
+ *   so queued requests never tie up the llm executor
+ */
+@Component
+public class GenerationAdmission {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerationAdmission.class);
+
+    // Weight of the latest generation in the moving average of generation time
+    private static final double EWMA_ALPHA = 0.2;
+
+    /**
+     * A running generation's slot; close it when the generation ends.
+     */
+    public final class Permit implements AutoCloseable {
+        private final long startedAt = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(System.nanoTime() - startedAt);
+            }
+        }
+    }
+
+    private static final class Waiter {
+        final boolean priority;
+        final long sequence;
+        final long enqueuedAt = System.nanoTime();
+        final CompletableFuture<Permit> permit = new CompletableFuture<>();
+
+        Waiter(boolean priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final long queueTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<>(
+            Comparator.comparing((Waiter w) -> !w.priority).thenComparingLong(w -> w.sequence));
+    private int active;
+    private long sequence;
+    private double averageGenerationSeconds;
+
+    private final Timer priorityWait;
+    private final Timer normalWait;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+    private final Counter rejectedSaturated;
+
+    public GenerationAdmission(@Value("${llm.admission.max-concurrent:2}") int maxConcurrent,
+                               @Value("${llm.admission.queue-capacity:20}") int queueCapacity,
+                               @Value("${llm.admission.queue-timeout-seconds:120}") long queueTimeoutSeconds,
+                               @Value("${llm.admission.initial-estimate-seconds:30}") double initialEstimateSeconds,
+                               MeterRegistry meterRegistry) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.queueTimeoutNanos = TimeUnit.SECONDS.toNanos(Math.max(0, queueTimeoutSeconds));
+        this.averageGenerationSeconds = initialEstimateSeconds;
+
+        this.priorityWait = Timer.builder("llm.admission.wait").tag("priority", "true")
+                .description("Time generations waited for admission").register(meterRegistry);
+        this.normalWait = Timer.builder("llm.admission.wait").tag("priority", "false")
+                .description("Time generations waited for admission").register(meterRegistry);
+        this.rejectedQueueFull = Counter.builder("llm.admission.rejected").tag("reason", "queue_full")
+                .description("Generations rejected by admission control").register(meterRegistry);
+        this.rejectedTimeout = Counter.builder("llm.admission.rejected").tag("reason", "timeout")
+                .description("Generations rejected by admission control").register(meterRegistry);
+        this.rejectedSaturated = Counter.builder("llm.admission.rejected").tag("reason", "executor_full")
+                .description("Generations rejected by admission control").register(meterRegistry);
+        Gauge.builder("llm.admission.active", this, GenerationAdmission::activeCount)
+                .description("Generations running").register(meterRegistry);
+        Gauge.builder("llm.admission.queued", this, GenerationAdmission::queuedCount)
+                .description("Generations waiting for admission").register(meterRegistry);
+    }
+
+    /**
+     * Request a generation slot. The future completes with the permit once a slot is free,
+     * or fails with GenerationRejectedException when the queue is full or the wait deadline passes.
+     * Cancelling the future gives up the place in the queue.
+     *
+     * @param priority jump ahead of non-priority waiters (fastMode requests)
+     */
+    public CompletableFuture<Permit> acquire(boolean priority) {
+        Waiter waiter;
+        lock.lock();
+        try {
+            if (active < maxConcurrent && queue.isEmpty()) {
+                active++;
+                return CompletableFuture.completedFuture(new Permit());
+            }
+            if (queue.size() >= queueCapacity) {
+                rejectedQueueFull.increment();
+                return CompletableFuture.failedFuture(new GenerationRejectedException(
+                        "Too many questions are waiting for an answer, please retry shortly", 429, retryAfterSeconds(queue.size())));
+            }
+            waiter = new Waiter(priority, sequence++);
+            queue.add(waiter);
+        } finally {
+            lock.unlock();
+        }
+        CompletableFuture.delayedExecutor(queueTimeoutNanos, TimeUnit.NANOSECONDS).execute(() -> expire(waiter));
+        waiter.permit.whenComplete((permit, ex) -> {
+            if (ex != null) withdraw(waiter);
+        });
+        return waiter.permit;
+    }
+
+    /**
+     * Rejection for a request that could not be handed to the llm executor (429, same Retry-After estimate).
+     */
+    public GenerationRejectedException saturated() {
+        rejectedSaturated.increment();
+        lock.lock();
+        try {
+            return new GenerationRejectedException("The assistant is busy, please retry shortly", 429, retryAfterSeconds(queue.size()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void expire(Waiter waiter) {
+        GenerationRejectedException timeout;
+        lock.lock();
+        try {
+            if (!queue.remove(waiter)) {
+                return; // admitted or cancelled in the meantime
+            }
+            rejectedTimeout.increment();
+            timeout = new GenerationRejectedException("The assistant is busy, please retry shortly", 503, retryAfterSeconds(queue.size()));
+        } finally {
+            lock.unlock();
+        }
+        logger.warn("Generation waited {}s for admission, giving up", TimeUnit.NANOSECONDS.toSeconds(queueTimeoutNanos));
+        waiter.permit.completeExceptionally(timeout);
+    }
+
+    private void withdraw(Waiter waiter) {
+        lock.lock();
+        try {
+            queue.remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long generationNanos) {
+        List<Waiter> admitted = new ArrayList<>();
+        lock.lock();
+        try {
+            active--;
+            double seconds = generationNanos / 1e9;
+            averageGenerationSeconds += EWMA_ALPHA * (seconds - averageGenerationSeconds);
+            while (active < maxConcurrent && !queue.isEmpty()) {
+                admitted.add(queue.poll());
+                active++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        // Completed outside the lock: the waiters' continuations run on this thread
+        for (Waiter waiter : admitted) {
+            (waiter.priority ? priorityWait : normalWait).record(System.nanoTime() - waiter.enqueuedAt, TimeUnit.NANOSECONDS);
+            Permit permit = new Permit();
+            if (!waiter.permit.complete(permit)) {
+                permit.close(); // cancelled just before it was admitted
+            }
+        }
+    }
+
+    // Time until a request queued behind `waiting` others would likely start (caller holds the lock)
+    private long retryAfterSeconds(int waiting) {
+        double seconds = averageGenerationSeconds * (waiting + 1) / maxConcurrent;
+        return Math.max(1, (long) Math.ceil(seconds));
+    }
+
+    private int activeCount() {
+        lock.lock();
+        try {
+            return active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int queuedCount() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.aichatbot.service;
+
+/**
+ * A generation was not admitted: the wait queue is full (429) or the queue-time deadline
+ * passed (503). Carries a hint for when to retry.
+ */
+public class GenerationRejectedException extends RuntimeException {
+
+    private final int status;
+    private final long retryAfterSeconds;
+
+    public GenerationRejectedException(String message, int status, long retryAfterSeconds) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /** HTTP status to answer with */
+    public int getStatus() { return status; }
+
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
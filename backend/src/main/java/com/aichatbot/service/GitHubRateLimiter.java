@@ -0,0 +1,139 @@
+package com.aichatbot.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces GitHub API calls.
+ * - Spaces request starts by rate.limiting.requests-per-minute (0 or less disables the base pacing)
+ * - When X-RateLimit-Remaining runs low, spreads the remaining budget until X-RateLimit-Reset
+ * - Pauses everyone on Retry-After or an exhausted budget
+ * - Publishes the last seen budget (github.ratelimit.*) and the time callers spent waiting
+ */
+@Component
+public class GitHubRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitHubRateLimiter.class);
+
+    // Below this many remaining requests the pace adapts to the reset window
+    private static final int LOW_WATERMARK = 100;
+
+    private final long baseIntervalNanos;
+
+    private long nextSlot = System.nanoTime();
+    private long adaptiveIntervalNanos = 0;
+    private long pausedUntilMillis = 0;
+
+    // Last rate-limit headers seen (-1 until GitHub sent them)
+    private volatile long lastRemaining = -1;
+    private volatile long lastLimit = -1;
+    private volatile long lastResetEpochSeconds = -1;
+
+    private final Timer waitTimer;
+    private final Counter limitedCounter;
+
+    public GitHubRateLimiter(@Value("${rate.limiting.requests-per-minute:60}") int requestsPerMinute,
+                             MeterRegistry meterRegistry) {
+        this.baseIntervalNanos = requestsPerMinute > 0 ? TimeUnit.MINUTES.toNanos(1) / requestsPerMinute : 0;
+        this.waitTimer = Timer.builder("github.ratelimit.wait")
+                .description("Time GitHub calls waited for the rate limiter").register(meterRegistry);
+        this.limitedCounter = Counter.builder("github.ratelimit.limited")
+                .description("GitHub responses rejected for rate limiting").register(meterRegistry);
+        Gauge.builder("github.ratelimit.remaining", this, limiter -> limiter.lastRemaining)
+                .description("Requests left in the current GitHub rate-limit window").register(meterRegistry);
+        Gauge.builder("github.ratelimit.limit", this, limiter -> limiter.lastLimit)
+                .description("Size of the GitHub rate-limit window").register(meterRegistry);
+        Gauge.builder("github.ratelimit.reset", this, GitHubRateLimiter::secondsUntilReset)
+                .description("Seconds until the GitHub rate-limit window resets").baseUnit("seconds").register(meterRegistry);
+    }
+
+    /**
+     * Block until the caller may start a request.
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long pauseNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, pausedUntilMillis - System.currentTimeMillis()));
+            long slot = Math.max(nextSlot, now + pauseNanos);
+            nextSlot = slot + Math.max(baseIntervalNanos, adaptiveIntervalNanos);
+            waitNanos = slot - now;
+        }
+        waitTimer.record(Math.max(0, waitNanos), TimeUnit.NANOSECONDS);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Update the pacing from a response's rate-limit headers.
+     * Returns true when the request was rejected for rate limiting and should be retried.
+     */
+    public boolean onResponse(HttpResponse<?> response) {
+        long remaining = header(response, "X-RateLimit-Remaining", -1);
+        long resetEpochSeconds = header(response, "X-RateLimit-Reset", -1);
+        long retryAfterSeconds = header(response, "Retry-After", -1);
+        long nowMillis = System.currentTimeMillis();
+        boolean limited = response.statusCode() == 429
+                || (response.statusCode() == 403 && (remaining == 0 || retryAfterSeconds >= 0));
+        if (remaining >= 0) {
+            lastRemaining = remaining;
+            lastLimit = header(response, "X-RateLimit-Limit", lastLimit);
+            lastResetEpochSeconds = resetEpochSeconds;
+        }
+        if (limited) {
+            limitedCounter.increment();
+        }
+
+        synchronized (this) {
+            if (retryAfterSeconds >= 0) {
+                pauseUntil(nowMillis + TimeUnit.SECONDS.toMillis(retryAfterSeconds));
+            } else if (remaining == 0 && resetEpochSeconds > 0) {
+                pauseUntil(TimeUnit.SECONDS.toMillis(resetEpochSeconds));
+            } else if (limited) {
+                // Secondary limit without hints: back off for a minute
+                pauseUntil(nowMillis + TimeUnit.MINUTES.toMillis(1));
+            }
+
+            if (remaining >= 0 && remaining < LOW_WATERMARK && resetEpochSeconds > 0) {
+                long windowMillis = Math.max(0, TimeUnit.SECONDS.toMillis(resetEpochSeconds) - nowMillis);
+                adaptiveIntervalNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis) / Math.max(1, remaining);
+            } else if (remaining >= LOW_WATERMARK) {
+                adaptiveIntervalNanos = 0;
+            }
+        }
+        return limited;
+    }
+
+    private double secondsUntilReset() {
+        long reset = lastResetEpochSeconds;
+        return reset < 0 ? -1 : Math.max(0, reset - TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+    }
+
+    private void pauseUntil(long untilMillis) {
+        if (untilMillis > pausedUntilMillis) {
+            pausedUntilMillis = untilMillis;
+            logger.warn("GitHub rate limit reached, pausing requests for {}s",
+                    TimeUnit.MILLISECONDS.toSeconds(untilMillis - System.currentTimeMillis()));
+        }
+    }
+
+    private long header(HttpResponse<?> response, String name, long defaultValue) {
+        return response.headers().firstValue(name).map(value -> {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }).orElse(defaultValue);
+    }
+}
@@ -1,25 +1,48 @@
 package com.aichatbot.service;
 
 import com.aichatbot.dto.GitHubFile;
+import com.aichatbot.config.AppExecutors;
 import com.aichatbot.config.GitHubRepositoryConfig;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
 public class GitHubService {
 
     private static final Logger logger = LoggerFactory.getLogger(GitHubService.class);
+    private static final int MAX_ATTEMPTS = 3;
+    // Same limit as the contents API, which returns no content for larger files
+    private static final int MAX_ARCHIVE_ENTRY_BYTES = 1024 * 1024;
 
     @Value("${repo.github.baseurl}")
     private String githubBaseUrl;
@@ -27,15 +50,26 @@ public class GitHubService {
     @Value("${repo.github.token}")
     private String githubToken;
 
+    // trees: one recursive git/trees call per repository; contents: one /contents call per directory
+    @Value("${repo.github.crawler:trees}")
+    private String crawler;
+
     private final ObjectMapper objectMapper;
     private final GitHubRepositoryConfig repositoryConfig;
     private final HttpClient httpClient;
+    private final GitHubRateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+    private final AppExecutors executors;
 
-    private final Map<String, List<GitHubFile>> repositoryCache = new HashMap<>();
+    private final Map<String, List<GitHubFile>> repositoryCache = new ConcurrentHashMap<>();
 
-    public GitHubService(ObjectMapper objectMapper, GitHubRepositoryConfig repositoryConfig) {
+    public GitHubService(ObjectMapper objectMapper, GitHubRepositoryConfig repositoryConfig, GitHubRateLimiter rateLimiter,
+                         AppExecutors executors, MeterRegistry meterRegistry) {
         this.objectMapper = objectMapper;
         this.repositoryConfig = repositoryConfig;
+        this.rateLimiter = rateLimiter;
+        this.meterRegistry = meterRegistry;
+        this.executors = executors;
         this.httpClient = HttpClient.newBuilder()
                 .followRedirects(HttpClient.Redirect.NORMAL)
                 .build();
@@ -47,7 +81,7 @@ public class GitHubService {
             
             for (GitHubRepositoryConfig.Repository repo : repositoryConfig.getRepositories()) {
                 try {
-                    List<GitHubFile> repoFiles = getRepositoryContents(repo, "").join();
+                    List<GitHubFile> repoFiles = listRepositoryFiles(repo);
                     allFiles.addAll(repoFiles);
                 } catch (Exception e) {
                     logger.error("Failed to get files from repository: {}", repo.getFullName(), e);
@@ -55,7 +89,157 @@ public class GitHubService {
             }
             
             return allFiles;
-        });
+        }, executors.github());
+    }
+
+    /**
+     * All files of one repository. Unlike getAllFiles the future fails when any part of the
+     * listing failed, so callers never mistake a partial listing for deleted files.
+     */
+    public CompletableFuture<List<GitHubFile>> listRepository(GitHubRepositoryConfig.Repository repository) {
+        return CompletableFuture.supplyAsync(() -> listRepositoryFiles(repository), executors.github());
+    }
+
+    /**
+     * All files of a repository using the configured crawler. The trees crawler falls back
+     * to the contents API when the trees endpoint is unavailable.
+     * Throws IllegalStateException when a directory cannot be listed.
+     */
+    private List<GitHubFile> listRepositoryFiles(GitHubRepositoryConfig.Repository repository) {
+        if ("trees".equalsIgnoreCase(crawler)) {
+            List<GitHubFile> files = getRepositoryTree(repository);
+            if (files != null) {
+                return files;
+            }
+            logger.warn("Git trees API unavailable for {}, falling back to contents crawler", repository.getFullName());
+        }
+        return listContents(repository, "");
+    }
+
+    /**
+     * List every blob of the branch with one recursive git/trees request, keeping SHAs and sizes.
+     * When GitHub truncates the response the listing is completed subtree by subtree, each
+     * subtree again fetched recursively and only split further if it is itself truncated.
+     * Returns null if the trees API cannot be used.
+     */
+    public List<GitHubFile> getRepositoryTree(GitHubRepositoryConfig.Repository repository) {
+        String cacheKey = repository.getFullName() + ":tree";
+        List<GitHubFile> cached = repositoryCache.get(cacheKey);
+        if (cached != null) {
+            logger.debug("Cache hit for: {}", cacheKey);
+            return cached;
+        }
+
+        try {
+            List<GitHubFile> files = new ArrayList<>();
+            Deque<String[]> pending = new ArrayDeque<>(); // {tree-ish, path prefix}
+            pending.add(new String[]{repository.getBranch(), ""});
+            int requests = 0;
+
+            while (!pending.isEmpty()) {
+                String[] next = pending.poll();
+                String treeish = next[0];
+                String prefix = next[1];
+
+                JsonNode tree = fetchTree(repository, treeish, true);
+                requests++;
+                if (tree == null) {
+                    if (requests == 1) return null;
+                    throw new IllegalStateException("Failed to fetch subtree " + prefix);
+                }
+
+                boolean truncated = tree.path("truncated").asBoolean(false);
+                if (truncated) {
+                    // Take direct children only and descend into subdirectories separately
+                    tree = fetchTree(repository, tree.path("sha").asText(treeish), false);
+                    requests++;
+                    if (tree == null) {
+                        throw new IllegalStateException("Failed to fetch subtree " + prefix);
+                    }
+                }
+
+                for (JsonNode item : tree.path("tree")) {
+                    String path = prefix + item.path("path").asText();
+                    String type = item.path("type").asText();
+                    if ("blob".equals(type)) {
+                        GitHubFile file = new GitHubFile();
+                        file.setName(path.substring(path.lastIndexOf('/') + 1));
+                        file.setPath(path);
+                        file.setType("file");
+                        file.setSha(item.path("sha").asText(null));
+                        file.setSize(item.path("size").asLong(0));
+                        file.setRepositoryName(repository.getFullName());
+                        files.add(file);
+                    } else if ("tree".equals(type) && truncated) {
+                        pending.add(new String[]{item.path("sha").asText(), path + "/"});
+                    }
+                }
+            }
+
+            logger.info("Listed {} files in {} with {} git/trees requests", files.size(), repository.getFullName(), requests);
+            repositoryCache.put(cacheKey, files);
+            return files;
+
+        } catch (Exception e) {
+            logger.error("Failed to list git tree for {}: {}", repository.getFullName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private JsonNode fetchTree(GitHubRepositoryConfig.Repository repository, String treeish, boolean recursive) throws Exception {
+        String url = String.format("%s/repos/%s/%s/git/trees/%s%s",
+                githubBaseUrl, repository.getOwner(), repository.getName(), treeish, recursive ? "?recursive=1" : "");
+
+        HttpResponse<String> response = get(url);
+        if (response.statusCode() != 200) {
+            logger.warn("GitHub API error for {}: {} - {}", url, response.statusCode(), response.body());
+            return null;
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    /**
+     * GET through the rate limiter, retrying requests rejected for rate limiting
+     * once the limiter's pause has passed.
+     */
+    private HttpResponse<String> get(String url) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Authorization", "token " + githubToken)
+                .header("Accept", "application/vnd.github+json")
+                .GET()
+                .build();
+        HttpResponse<String> response = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            rateLimiter.acquire();
+            response = send(request, HttpResponse.BodyHandlers.ofString(), "api");
+            if (!rateLimiter.onResponse(response)) {
+                break;
+            }
+            logger.warn("Rate limited by GitHub for {} (attempt {}/{})", url, attempt + 1, MAX_ATTEMPTS);
+        }
+        return response;
+    }
+
+    /**
+     * Send a request and record its latency as github.request (type, status).
+     * For streamed bodies (tarball) this is the time until the response headers arrived.
+     */
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler, String type) throws Exception {
+        long start = System.nanoTime();
+        String status = "error";
+        try {
+            HttpResponse<T> response = httpClient.send(request, bodyHandler);
+            status = String.valueOf(response.statusCode());
+            return response;
+        } finally {
+            Timer.builder("github.request")
+                    .description("GitHub API call latency")
+                    .tag("type", type)
+                    .tag("status", status)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
     public CompletableFuture<List<GitHubFile>> getRepositoryContents(GitHubRepositoryConfig.Repository repository, String path) {
@@ -68,52 +252,69 @@ public class GitHubService {
 
         return CompletableFuture.supplyAsync(() -> {
             try {
-                String url = String.format("%s/repos/%s/%s/contents/%s?ref=%s",
-                        githubBaseUrl, repository.getOwner(), repository.getName(), path, repository.getBranch());
-                
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(url))
-                        .header("Authorization", "token " + githubToken)
-                        .header("Accept", "application/vnd.github+json")
-                        .GET()
-                        .build();
+                return listContents(repository, path);
+            } catch (IllegalStateException e) {
+                logger.warn("Failed to list {} in {}: {}", path, repository.getFullName(), e.getMessage());
+                return new ArrayList<>();
+            }
+        }, executors.github());
+    }
 
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    /**
+     * Files under a path via the contents API, one call per directory. Subdirectories are walked
+     * on the calling thread instead of joining nested futures on a shared pool.
+     * A directory that cannot be listed fails the whole call with IllegalStateException
+     * (nothing is cached), it is never reported as empty.
+     */
+    private List<GitHubFile> listContents(GitHubRepositoryConfig.Repository repository, String path) {
+        String cacheKey = repository.getFullName() + ":" + path;
+        List<GitHubFile> cached = repositoryCache.get(cacheKey);
+        if (cached != null) {
+            logger.debug("Cache hit for: {}", cacheKey);
+            return cached;
+        }
+        try {
+            String url = String.format("%s/repos/%s/%s/contents/%s?ref=%s",
+                    githubBaseUrl, repository.getOwner(), repository.getName(), path, repository.getBranch());
+            
+            HttpResponse<String> response = get(url);
 
-                if (response.statusCode() != 200) {
-                    logger.error("GitHub API error for {}: {} - {}", url, response.statusCode(), response.body());
-                    return new ArrayList<>();
-                }
+            if (response.statusCode() != 200) {
+                logger.error("GitHub API error for {}: {} - {}", url, response.statusCode(), response.body());
+                throw new IllegalStateException("GitHub API returned " + response.statusCode() + " listing '" + path + "'");
+            }
 
-                JsonNode jsonArray = objectMapper.readTree(response.body());
-                List<GitHubFile> files = new ArrayList<>();
+            JsonNode jsonArray = objectMapper.readTree(response.body());
+            List<GitHubFile> files = new ArrayList<>();
 
-                if (jsonArray.isArray()) {
-                    for (JsonNode item : jsonArray) {
-                        GitHubFile file = new GitHubFile();
-                        file.setName(item.get("name").asText());
-                        file.setPath(item.get("path").asText());
-                        file.setType(item.get("type").asText());
-                        file.setSize(item.has("size") ? item.get("size").asLong() : 0);
-                        file.setRepositoryName(repository.getFullName());
+            if (jsonArray.isArray()) {
+                for (JsonNode item : jsonArray) {
+                    GitHubFile file = new GitHubFile();
+                    file.setName(item.get("name").asText());
+                    file.setPath(item.get("path").asText());
+                    file.setType(item.get("type").asText());
+                    file.setSha(item.has("sha") ? item.get("sha").asText() : null);
+                    file.setSize(item.has("size") ? item.get("size").asLong() : 0);
+                    file.setRepositoryName(repository.getFullName());
 
-                        if ("dir".equals(file.getType())) {
-                            List<GitHubFile> subFiles = getRepositoryContents(repository, file.getPath()).join();
-                            files.addAll(subFiles);
-                        } else {
-                            files.add(file);
-                        }
+                    if ("dir".equals(file.getType())) {
+                        List<GitHubFile> subFiles = listContents(repository, file.getPath());
+                        files.addAll(subFiles);
+                    } else {
+                        files.add(file);
                     }
                 }
+            }
 
-                repositoryCache.put(cacheKey, files);
-                return files;
+            repositoryCache.put(cacheKey, files);
+            return files;
 
-            } catch (Exception e) {
-                logger.error("Failed to fetch repository contents for {}: {}", repository.getFullName(), e.getMessage());
-                return new ArrayList<>();
-            }
-        });
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Failed to fetch repository contents for {}: {}", repository.getFullName(), e.getMessage());
+            throw new IllegalStateException("Failed to list '" + path + "' in " + repository.getFullName(), e);
+        }
     }
 
     public CompletableFuture<GitHubFile> getFileContent(GitHubRepositoryConfig.Repository repository, String filePath) {
@@ -122,14 +323,7 @@ public class GitHubService {
                 String url = String.format("%s/repos/%s/%s/contents/%s?ref=%s",
                         githubBaseUrl, repository.getOwner(), repository.getName(), filePath, repository.getBranch());
 
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(url))
-                        .header("Authorization", "token " + githubToken)
-                        .header("Accept", "application/vnd.github+json")
-                        .GET()
-                        .build();
-
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = get(url);
 
                 if (response.statusCode() != 200) {
                     logger.error("GitHub API error for file {}: {} - {}", filePath, response.statusCode(), response.body());
@@ -142,6 +336,7 @@ public class GitHubService {
                 file.setName(jsonResponse.get("name").asText());
                 file.setPath(jsonResponse.get("path").asText());
                 file.setType(jsonResponse.get("type").asText());
+                file.setSha(jsonResponse.has("sha") ? jsonResponse.get("sha").asText() : null);
                 file.setSize(jsonResponse.has("size") ? jsonResponse.get("size").asLong() : 0);
                 file.setRepositoryName(repository.getFullName());
 
@@ -157,7 +352,143 @@ public class GitHubService {
                 logger.error("Failed to fetch file content for {}: {}", filePath, e.getMessage());
                 return new GitHubFile();
             }
-        });
+        }, executors.github());
+    }
+
+    /**
+     * Stream a repository archive entry by entry: the repository's local archive when configured,
+     * otherwise GET /tarball/{ref}. Text files are handed to the consumer with their content and
+     * git blob SHA; the archive itself is never buffered. The consumer may block to apply backpressure.
+     * Paths are made repository-relative: GitHub tarballs always wrap everything in one owner-repo-sha/
+     * directory, which is stripped; a local archive only loses a leading directory that every entry
+     * shares (found by a first pass over its entry names).
+     * Returns true if the whole archive was read.
+     */
+    public boolean streamRepositoryArchive(GitHubRepositoryConfig.Repository repository, Consumer<GitHubFile> consumer) {
+        String source = repository.getArchive();
+        boolean local = source != null && !source.isBlank();
+        try {
+            // null: strip each entry's first path component (GitHub tarball)
+            String rootPrefix = local ? commonRoot(source) : null;
+            try (InputStream raw = local ? Files.newInputStream(Path.of(source)) : openTarball(repository);
+                 ArchiveInputStream archive = openArchive(new BufferedInputStream(raw, 1 << 16),
+                         local ? source : "tarball.tar.gz")) {
+                return streamEntries(repository, archive, rootPrefix, consumer);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to stream archive for {}: {}", repository.getFullName(), e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean streamEntries(GitHubRepositoryConfig.Repository repository, ArchiveInputStream archive,
+                                  String rootPrefix, Consumer<GitHubFile> consumer) throws IOException {
+        int files = 0;
+        ArchiveEntry entry;
+        while ((entry = archive.getNextEntry()) != null) {
+            String name = entry.getName();
+            if (entry.isDirectory() || !archive.canReadEntryData(entry)) continue;
+            if (entry instanceof TarArchiveEntry tarEntry && !tarEntry.isFile()) continue;
+
+            String path;
+            if (rootPrefix == null) {
+                path = name.substring(name.indexOf('/') + 1);
+            } else {
+                path = name.startsWith(rootPrefix) ? name.substring(rootPrefix.length()) : name;
+            }
+            if (path.isEmpty()) continue;
+            String fileName = path.substring(path.lastIndexOf('/') + 1);
+            if (!isTextFile(fileName)) continue;
+            if (entry.getSize() > MAX_ARCHIVE_ENTRY_BYTES) {
+                logger.debug("Skipping large archive entry {} ({} bytes)", path, entry.getSize());
+                continue;
+            }
+
+            byte[] bytes = archive.readNBytes(MAX_ARCHIVE_ENTRY_BYTES + 1);
+            if (bytes.length > MAX_ARCHIVE_ENTRY_BYTES) continue;
+
+            GitHubFile file = new GitHubFile();
+            file.setName(fileName);
+            file.setPath(path);
+            file.setType("file");
+            file.setSize(bytes.length);
+            file.setSha(gitBlobSha(bytes));
+            file.setContent(new String(bytes, StandardCharsets.UTF_8));
+            file.setRepositoryName(repository.getFullName());
+            consumer.accept(file);
+            files++;
+        }
+        logger.info("Streamed {} text files from archive of {}", files, repository.getFullName());
+        return true;
+    }
+
+    /**
+     * Leading directory (with its trailing slash) shared by every entry of a local archive, or "" if
+     * any entry lies outside it.
+     */
+    private String commonRoot(String source) throws IOException {
+        String root = null;
+        try (ArchiveInputStream archive = openArchive(
+                new BufferedInputStream(Files.newInputStream(Path.of(source)), 1 << 16), source)) {
+            ArchiveEntry entry;
+            while ((entry = archive.getNextEntry()) != null) {
+                String name = entry.getName();
+                int slash = name.indexOf('/');
+                if (slash < 0) {
+                    return "";
+                }
+                String first = name.substring(0, slash + 1);
+                if (root == null) {
+                    root = first;
+                } else if (!root.equals(first)) {
+                    return "";
+                }
+            }
+        }
+        return root == null ? "" : root;
+    }
+
+    private InputStream openTarball(GitHubRepositoryConfig.Repository repository) throws Exception {
+        String url = String.format("%s/repos/%s/%s/tarball/%s",
+                githubBaseUrl, repository.getOwner(), repository.getName(), repository.getBranch());
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Authorization", "token " + githubToken)
+                .GET()
+                .build();
+
+        rateLimiter.acquire();
+        HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream(), "tarball");
+        rateLimiter.onResponse(response);
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("GitHub API error for " + url + ": " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    private ArchiveInputStream openArchive(InputStream in, String name) throws IOException {
+        String lower = name.toLowerCase();
+        if (lower.endsWith(".zip")) {
+            return new ZipArchiveInputStream(in);
+        }
+        if (lower.endsWith(".tar")) {
+            return new TarArchiveInputStream(in);
+        }
+        return new TarArchiveInputStream(new GzipCompressorInputStream(in));
+    }
+
+    /**
+     * SHA-1 of "blob {length}\0{content}", the id git (and the GitHub API) gives a file's content.
+     */
+    static String gitBlobSha(byte[] content) {
+        try {
+            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            sha1.update(("blob " + content.length + "\0").getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(sha1.digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     public boolean isTextFile(String fileName) {
@@ -0,0 +1,145 @@
+package com.aichatbot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes chunk and query embeddings through Ollama's /api/embeddings endpoint.
+ * Vectors are normalized to unit length so cosine similarity is a plain dot product.
+ */
+@Service
+public class OllamaEmbeddingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OllamaEmbeddingService.class);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+
+    @Value("${spring.ai.ollama.base-url}")
+    private String ollamaBaseUrl;
+
+    @Value("${spring.ai.ollama.embedding.model}")
+    private String embeddingModel;
+
+    @Value("${rag.vectors.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rag.query-embedding.timeout-ms:3000}")
+    private long queryTimeoutMs;
+
+    @Value("${rag.query-embedding.max-concurrent:4}")
+    private int queryMaxConcurrent;
+
+    // Query embeddings currently waiting on Ollama
+    private final AtomicInteger queriesInFlight = new AtomicInteger();
+
+    public OllamaEmbeddingService(@Qualifier("ollamaHttpClient") HttpClient httpClient, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.httpClient = httpClient;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getModelName() {
+        return embeddingModel;
+    }
+
+    /**
+     * Embed a text, or return null if vectors are disabled or the call fails
+     * (callers then fall back to lexical retrieval only).
+     */
+    public float[] embed(String text) {
+        return embed(text, Duration.ofSeconds(60));
+    }
+
+    /**
+     * Embed a chat query on the request path, failing fast instead of queueing behind a busy Ollama.
+     * - At most rag.query-embedding.max-concurrent calls at once; beyond that null is returned at once
+     * - Each call gives up after rag.query-embedding.timeout-ms
+     * Null means lexical retrieval only, as with embed.
+     */
+    public float[] embedQuery(String query) {
+        if (!enabled || query == null || query.isBlank()) {
+            return null;
+        }
+        if (queriesInFlight.incrementAndGet() > queryMaxConcurrent) {
+            queriesInFlight.decrementAndGet();
+            logger.debug("Too many query embeddings in flight, using lexical retrieval only");
+            return null;
+        }
+        try {
+            return embed(query, Duration.ofMillis(queryTimeoutMs));
+        } finally {
+            queriesInFlight.decrementAndGet();
+        }
+    }
+
+    private float[] embed(String text, Duration timeout) {
+        if (!enabled || text == null || text.isBlank()) {
+            return null;
+        }
+        try {
+            String requestBody = objectMapper.writeValueAsString(Map.of(
+                    "model", embeddingModel,
+                    "prompt", text
+            ));
+
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(ollamaBaseUrl + "/api/embeddings"))
+                    .header("Content-Type", "application/json")
+                    .timeout(timeout)
+                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+                    .build();
+
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+            if (response.statusCode() != 200) {
+                logger.warn("Ollama embeddings API error: {} - {}", response.statusCode(), response.body());
+                return null;
+            }
+
+            JsonNode values = objectMapper.readTree(response.body()).get("embedding");
+            if (values == null || !values.isArray() || values.isEmpty()) {
+                return null;
+            }
+            float[] vector = new float[values.size()];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = (float) values.get(i).asDouble();
+            }
+            return normalize(vector);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            logger.warn("Failed to compute embedding: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private float[] normalize(float[] vector) {
+        double norm = 0.0;
+        for (float v : vector) norm += v * v;
+        norm = Math.sqrt(norm);
+        if (norm == 0.0) return vector;
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) (vector[i] / norm);
+        }
+        return vector;
+    }
+}
@@ -1,23 +1,59 @@
 package com.aichatbot.service;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
+/**
+ * Client for Ollama's /api/generate.
+ * - Request bodies are written and responses read with Jackson's streaming API (no string splicing)
+ * - Uses the shared keep-alive ollamaHttpClient
+ * - Ollama's own timings of every generation are published as ollama.* metrics
+ */
 @Service
 public class OllamaService {
     
     private static final Logger logger = LoggerFactory.getLogger(OllamaService.class);
     
+    /**
+     * Text and Ollama-reported statistics of one generation (durations in nanoseconds).
+     */
+    static final class Generation {
+        final StringBuilder text = new StringBuilder();
+        boolean done;
+        long totalDuration;
+        long loadDuration;
+        long promptEvalCount;
+        long promptEvalDuration;
+        long evalCount;
+        long evalDuration;
+    }
+    
     private final HttpClient httpClient;
+    private final JsonFactory jsonFactory;
+    private final MeterRegistry meterRegistry;
     
     @Value("${spring.ai.ollama.base-url}")
     private String ollamaBaseUrl;
@@ -25,93 +61,148 @@ public class OllamaService {
     @Value("${spring.ai.ollama.chat.model}")
     private String modelName;
     
-    public OllamaService() {
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(30))
-                .build();
+    public OllamaService(@Qualifier("ollamaHttpClient") HttpClient httpClient, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.httpClient = httpClient;
+        this.jsonFactory = objectMapper.getFactory();
+        this.meterRegistry = meterRegistry;
     }
     
     public String generateResponse(String prompt) {
         try {
             logger.debug("Generating response using model: {}", modelName);
             
-            String requestBody = buildRequestBody(prompt);
-            
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(ollamaBaseUrl + "/api/generate"))
-                    .header("Content-Type", "application/json")
-                    .timeout(Duration.ofMinutes(10))
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .build();
+            HttpResponse<InputStream> response = httpClient.send(buildRequest(prompt, false), HttpResponse.BodyHandlers.ofInputStream());
             
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            
-            if (response.statusCode() != 200) {
-                logger.error("Ollama API error: {} - {}", response.statusCode(), response.body());
-                throw new RuntimeException("Ollama API returned status: " + response.statusCode());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200) {
+                    String error = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                    logger.error("Ollama API error: {} - {}", response.statusCode(), error);
+                    throw new RuntimeException("Ollama API returned status: " + response.statusCode());
+                }
+                
+                Generation generation = new Generation();
+                try (JsonParser parser = jsonFactory.createParser(body)) {
+                    readChunk(parser, generation, null);
+                }
+                recordMetrics(generation, "blocking");
+                
+                if (generation.text.length() == 0) {
+                    logger.warn("Ollama returned an empty response");
+                    return "I apologize, but I couldn't generate a proper response. Please try again.";
+                }
+                return generation.text.toString();
             }
             
-            return parseResponse(response.body());
-            
         } catch (IOException | InterruptedException e) {
             logger.error("Failed to communicate with Ollama", e);
             throw new RuntimeException("Failed to generate response: " + e.getMessage());
         }
     }
     
-    private String buildRequestBody(String prompt) {
+    HttpRequest buildRequest(String prompt, boolean stream) throws IOException {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(ollamaBaseUrl + "/api/generate"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofMinutes(10))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(buildRequestBody(prompt, stream)))
+                .build();
+    }
+    
+    byte[] buildRequestBody(String prompt, boolean stream) throws IOException {
         // Heuristic: if prompt is short (< 1200 chars) we request fewer tokens to accelerate generation
         int numPredict = prompt.length() < 1200 ? 512 : 2048; // previously 8192
         int numCtx = Math.min(8192, 16384); // cap to 8k for speed
-        return String.format("""
-                {
-                    "model": "%s",
-                    "prompt": "%s",
-                    "stream": false,
-                    "options": {
-                        "temperature": 0.1,
-                        "top_p": 0.9,
-                        "num_predict": %d,
-                        "num_ctx": %d
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream(prompt.length() + 256);
+        try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeStringField("model", modelName);
+            json.writeStringField("prompt", prompt);
+            json.writeBooleanField("stream", stream);
+            json.writeObjectFieldStart("options");
+            json.writeNumberField("temperature", 0.1);
+            json.writeNumberField("top_p", 0.9);
+            json.writeNumberField("num_predict", numPredict);
+            json.writeNumberField("num_ctx", numCtx);
+            json.writeEndObject();
+            json.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+    
+    JsonParser createParser(InputStream in) throws IOException {
+        return jsonFactory.createParser(in);
+    }
+    
+    /**
+     * Read the next response object (the whole reply, or one NDJSON line when streaming) into the
+     * generation, passing its text fragment to onToken. Returns false at end of input.
+     */
+    boolean readChunk(JsonParser parser, Generation generation, Consumer<String> onToken) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "response" -> {
+                    String token = parser.getText();
+                    if (!token.isEmpty()) {
+                        generation.text.append(token);
+                        if (onToken != null) onToken.accept(token);
                     }
                 }
-                """, modelName, escapeJson(prompt), numPredict, numCtx);
+                case "error" -> throw new IOException("Ollama error: " + parser.getText());
+                case "done" -> generation.done = parser.getBooleanValue();
+                case "total_duration" -> generation.totalDuration = parser.getLongValue();
+                case "load_duration" -> generation.loadDuration = parser.getLongValue();
+                case "prompt_eval_count" -> generation.promptEvalCount = parser.getLongValue();
+                case "prompt_eval_duration" -> generation.promptEvalDuration = parser.getLongValue();
+                case "eval_count" -> generation.evalCount = parser.getLongValue();
+                case "eval_duration" -> generation.evalDuration = parser.getLongValue();
+                default -> parser.skipChildren(); // e.g. the context token array
+            }
+        }
+        return true;
     }
     
-    private String parseResponse(String responseBody) {
-        try {
-            // Simple JSON parsing - in production use proper JSON library
-            int responseStart = responseBody.indexOf("\"response\":\"") + 12;
-            int responseEnd = responseBody.lastIndexOf("\",\"done\"");
-            
-            if (responseStart > 11 && responseEnd > responseStart) {
-                String response = responseBody.substring(responseStart, responseEnd);
-                return unescapeJson(response);
-            }
-            
-            logger.warn("Could not parse Ollama response: {}", responseBody);
-            return "I apologize, but I couldn't generate a proper response. Please try again.";
-            
-        } catch (Exception e) {
-            logger.error("Failed to parse Ollama response", e);
-            return "I encountered an error while processing your request. Please try again.";
+    /**
+     * Publish Ollama's reported timings of a finished generation.
+     */
+    void recordMetrics(Generation generation, String mode) {
+        if (!generation.done) {
+            return;
+        }
+        timer("ollama.prompt.eval", "Prompt evaluation time reported by Ollama", mode)
+                .record(generation.promptEvalDuration, TimeUnit.NANOSECONDS);
+        timer("ollama.eval", "Token generation time reported by Ollama", mode)
+                .record(generation.evalDuration, TimeUnit.NANOSECONDS);
+        timer("ollama.load", "Model load time reported by Ollama", mode)
+                .record(generation.loadDuration, TimeUnit.NANOSECONDS);
+        timer("ollama.total", "Total generation time reported by Ollama", mode)
+                .record(generation.totalDuration, TimeUnit.NANOSECONDS);
+        summary("ollama.prompt.tokens", "Prompt tokens evaluated", "tokens", mode).record(generation.promptEvalCount);
+        summary("ollama.eval.tokens", "Tokens generated", "tokens", mode).record(generation.evalCount);
+        if (generation.evalDuration > 0) {
+            summary("ollama.eval.rate", "Generation speed", "tokens/s", mode)
+                    .record(generation.evalCount * 1e9 / generation.evalDuration);
         }
+        logger.debug("Ollama {}: prompt {} tokens in {} ms, generated {} tokens in {} ms", mode,
+                generation.promptEvalCount, generation.promptEvalDuration / 1_000_000,
+                generation.evalCount, generation.evalDuration / 1_000_000);
     }
     
-    private String escapeJson(String text) {
-        return text.replace("\\", "\\\\")
-                   .replace("\"", "\\\"")
-                   .replace("\n", "\\n")
-                   .replace("\r", "\\r")
-                   .replace("\t", "\\t");
+    private Timer timer(String name, String description, String mode) {
+        return Timer.builder(name).description(description)
+                .tag("model", String.valueOf(modelName)).tag("mode", mode)
+                .register(meterRegistry);
     }
     
-    private String unescapeJson(String text) {
-        return text.replace("\\\\", "\\")
-                   .replace("\\\"", "\"")
-                   .replace("\\n", "\n")
-                   .replace("\\r", "\r")
-                   .replace("\\t", "\t");
+    private DistributionSummary summary(String name, String description, String unit, String mode) {
+        return DistributionSummary.builder(name).description(description).baseUnit(unit)
+                .tag("model", String.valueOf(modelName)).tag("mode", mode)
+                .register(meterRegistry);
     }
     
     public boolean isHealthy() {
@@ -122,7 +213,7 @@ public class OllamaService {
                     .GET()
                     .build();
             
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
             return response.statusCode() == 200;
             
         } catch (Exception e) {
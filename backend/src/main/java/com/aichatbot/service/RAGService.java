@@ -1,6 +1,7 @@
 package com.aichatbot.service;
 
 import com.aichatbot.dto.GitHubFile;
+import com.aichatbot.config.AppExecutors;
 import com.aichatbot.config.GitHubRepositoryConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,8 +11,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Value;
 import jakarta.annotation.PostConstruct;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
@@ -22,17 +28,25 @@ public class RAGService {
     private final GitHubService gitHubService;
     private final DocumentProcessingService documentProcessingService;
     private final GitHubRepositoryConfig repositoryConfig;
-    @Value("${rag.cleanOnStartup:true}")
+    private final AppExecutors executors;
+    @Value("${rag.cleanOnStartup:false}")
     private boolean cleanOnStartup;
+    @Value("${rag.indexing.incremental:true}")
+    private boolean incremental;
+    @Value("${rag.indexing.concurrency:8}")
+    private int concurrency;
+    @Value("${repo.github.ingestion:contents}")
+    private String ingestion;
     
     private volatile boolean indexingInProgress = false;
     private volatile long lastIndexTime = 0;
     
     public RAGService(GitHubService gitHubService, DocumentProcessingService documentProcessingService, 
-                      GitHubRepositoryConfig repositoryConfig) {
+                      GitHubRepositoryConfig repositoryConfig, AppExecutors executors) {
         this.gitHubService = gitHubService;
         this.documentProcessingService = documentProcessingService;
         this.repositoryConfig = repositoryConfig;
+        this.executors = executors;
     }
 
     @PostConstruct
@@ -72,8 +86,9 @@ public class RAGService {
             long startTime = System.currentTimeMillis();
             
             try {
-                logger.info("Starting repository indexing for {} repositories (force: {})", 
-                           repositoryConfig.getRepositories().size(), forceReindex);
+                boolean incrementalRun = incremental && !forceReindex;
+                logger.info("Starting repository indexing for {} repositories (force: {}, incremental: {})", 
+                           repositoryConfig.getRepositories().size(), forceReindex, incrementalRun);
                 
                 if (forceReindex) {
                     for (GitHubRepositoryConfig.Repository repo : repositoryConfig.getRepositories()) {
@@ -81,35 +96,39 @@ public class RAGService {
                     }
                 }
                 
-                List<GitHubFile> allFiles = gitHubService.getAllFiles().join();
-                logger.info("Found {} files across all repositories", allFiles.size());
-                
-                List<GitHubFile> textFiles = allFiles.stream()
-                        .filter(file -> gitHubService.isTextFile(file.getName()))
-                        .toList();
-                
-                logger.info("Processing {} text files", textFiles.size());
-                
-                AtomicInteger processed = new AtomicInteger(0);
-                AtomicInteger failed = new AtomicInteger(0);
-                
-                int batchSize = 10;
-                for (int i = 0; i < textFiles.size(); i += batchSize) {
-                    int end = Math.min(i + batchSize, textFiles.size());
-                    List<GitHubFile> batch = textFiles.subList(i, end);
-                    
-                    List<CompletableFuture<Void>> batchFutures = batch.stream()
-                            .map(file -> processFile(file, processed, failed))
-                            .toList();
-                    
-                    CompletableFuture.allOf(batchFutures.toArray(new CompletableFuture[0])).join();
+                IndexRun run = new IndexRun(concurrency);
+                if ("tarball".equalsIgnoreCase(ingestion)) {
+                    for (GitHubRepositoryConfig.Repository repo : repositoryConfig.getRepositories()) {
+                        indexFromArchive(repo, incrementalRun, run);
+                    }
+                } else {
+                    // Listings are cached; start from the current state of the branches
+                    gitHubService.clearCache();
+                    List<GitHubFile> textFiles = new ArrayList<>();
+                    for (GitHubRepositoryConfig.Repository repo : repositoryConfig.getRepositories()) {
+                        List<GitHubFile> repoFiles;
+                        try {
+                            repoFiles = gitHubService.listRepository(repo).join().stream()
+                                    .filter(file -> gitHubService.isTextFile(file.getName()))
+                                    .toList();
+                        } catch (Exception e) {
+                            // A partial listing would look like deleted files; leave the repository as indexed
+                            logger.warn("Failed to list {}, skipping it this run: {}", repo.getFullName(), e.getMessage());
+                            continue;
+                        }
+                        textFiles.addAll(incrementalRun ? selectChangedFiles(repo, repoFiles) : repoFiles);
+                    }
                     
-                    int currentProgress = processed.get();
-                    if (currentProgress % 20 == 0 || currentProgress == textFiles.size()) {
-                        logger.info("Processed {}/{} files ({} failed)", 
-                                   currentProgress, textFiles.size(), failed.get());
+                    logger.info("Processing {} text files", textFiles.size());
+                    run.total = textFiles.size();
+                    for (GitHubFile file : textFiles) {
+                        run.submit(file);
                     }
                 }
+                // Wait for the files still in flight
+                run.await();
+                AtomicInteger processed = run.processed;
+                AtomicInteger failed = run.failed;
                 
                 long duration = System.currentTimeMillis() - startTime;
                 lastIndexTime = System.currentTimeMillis();
@@ -122,7 +141,99 @@ public class RAGService {
             } finally {
                 indexingInProgress = false;
             }
+        }, executors.indexing());
+    }
+    
+    /**
+     * Incremental mode: keep only files of a completely listed repository whose blob SHA differs
+     * from the stored fileHash (added or modified) and delete the embeddings of files no longer in it.
+     */
+    private List<GitHubFile> selectChangedFiles(GitHubRepositoryConfig.Repository repo, List<GitHubFile> current) {
+        Map<String, String> indexed = documentProcessingService.getIndexedFileHashes(repo.getOwner(), repo.getName());
+        
+        List<GitHubFile> changed = new ArrayList<>();
+        Set<String> currentPaths = new HashSet<>();
+        int modified = 0;
+        for (GitHubFile file : current) {
+            currentPaths.add(file.getPath());
+            String indexedHash = indexed.get(file.getPath());
+            if (file.getSha() == null || !file.getSha().equals(indexedHash)) {
+                changed.add(file);
+                if (indexed.containsKey(file.getPath())) modified++;
+            }
+        }
+        
+        List<String> removed = indexed.keySet().stream()
+                .filter(path -> !currentPaths.contains(path))
+                .toList();
+        documentProcessingService.deleteFiles(repo.getOwner(), repo.getName(), removed);
+        
+        logger.info("{}: {} files, {} added, {} modified, {} removed", repo.getFullName(), current.size(),
+                   changed.size() - modified, modified, removed.size());
+        return changed;
+    }
+    
+    /**
+     * Archive mode: stream the repository archive straight into the pipeline. In incremental
+     * runs unchanged files (same blob SHA) are skipped and files missing from the archive removed.
+     */
+    private void indexFromArchive(GitHubRepositoryConfig.Repository repo, boolean incrementalRun, IndexRun run) {
+        Map<String, String> indexed = incrementalRun
+                ? documentProcessingService.getIndexedFileHashes(repo.getOwner(), repo.getName())
+                : Map.of();
+        Set<String> seen = new HashSet<>();
+        AtomicInteger unchanged = new AtomicInteger();
+        
+        // Blocks in submit() while the window is full, which pauses reading the archive
+        boolean complete = gitHubService.streamRepositoryArchive(repo, file -> {
+            seen.add(file.getPath());
+            if (file.getSha().equals(indexed.get(file.getPath()))) {
+                unchanged.incrementAndGet();
+                return;
+            }
+            run.submit(file);
         });
+        
+        if (complete && incrementalRun) {
+            List<String> removed = indexed.keySet().stream()
+                    .filter(path -> !seen.contains(path))
+                    .toList();
+            documentProcessingService.deleteFiles(repo.getOwner(), repo.getName(), removed);
+        }
+        logger.info("{}: {} files in archive, {} unchanged", repo.getFullName(), seen.size(), unchanged.get());
+    }
+    
+    /**
+     * Bounded window over one indexing run: a file holds a permit from fetch through chunking
+     * until its chunks are stored, so a slow file never stalls the others and memory stays bounded.
+     */
+    private class IndexRun {
+        final AtomicInteger processed = new AtomicInteger(0);
+        final AtomicInteger failed = new AtomicInteger(0);
+        final Semaphore window;
+        final int permits;
+        volatile int total = -1; // unknown while streaming archives
+        
+        IndexRun(int permits) {
+            this.permits = Math.max(1, permits);
+            this.window = new Semaphore(this.permits);
+        }
+        
+        void submit(GitHubFile file) {
+            window.acquireUninterruptibly();
+            processFile(file, processed, failed).whenComplete((ignored, ex) -> {
+                window.release();
+                int done = processed.get() + failed.get();
+                if (done % 20 == 0 || done == total) {
+                    logger.info("Processed {}/{} files ({} failed)", processed.get(), total < 0 ? "?" : total, failed.get());
+                }
+            });
+        }
+        
+        void await() {
+            window.acquireUninterruptibly(permits);
+            window.release(permits);
+        }
     }
     
     private CompletableFuture<Void> processFile(GitHubFile file, AtomicInteger processed, AtomicInteger failed) {
@@ -131,7 +242,12 @@ public class RAGService {
                 .findFirst()
                 .orElse(repositoryConfig.getRepositories().get(0));
         
-        return gitHubService.getFileContent(repository, file.getPath())
+        // Archive entries arrive with their content already
+        CompletableFuture<GitHubFile> content = file.getContent() != null
+                ? CompletableFuture.completedFuture(file)
+                : gitHubService.getFileContent(repository, file.getPath());
+        
+        return content
                 .thenCompose(fileWithContent -> {
                     try {
                         return documentProcessingService.processDocument(
@@ -139,7 +255,8 @@ public class RAGService {
                                 fileWithContent.getContent(),
                                 repository.getOwner(),
                                 repository.getName(),
-                                repository.getBranch()
+                                repository.getBranch(),
+                                fileWithContent.getSha() != null ? fileWithContent.getSha() : file.getSha()
                         ).thenRun(() -> processed.incrementAndGet());
                     } catch (Exception e) {
                         logger.warn("Failed to process file: {} from repository: {}", 
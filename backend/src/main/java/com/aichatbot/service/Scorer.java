@@ -0,0 +1,28 @@
+package com.aichatbot.service;
+
+import com.aichatbot.model.DocumentEmbedding;
+
+/**
+ * Lexical ranking function used by DocumentProcessingService (selected with rag.scorer).
+ * A scorer prepares per-query state once, then scores each candidate chunk against it.
+ */
+public interface Scorer {
+
+    String getName();
+
+    QueryScorer prepare(String query);
+
+    /**
+     * Scoring state for one query.
+     */
+    interface QueryScorer {
+
+        /** Relevance of one chunk; zero or less means no match */
+        double score(DocumentEmbedding chunk);
+
+        /** Extra score for a file path, added to its aggregated chunk scores when ranking files */
+        default double fileBonus(String filePath) {
+            return 0.0;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.aichatbot.service;
+
+import com.aichatbot.model.DocumentEmbedding;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Scores candidate chunks in fixed-size partitions on a dedicated ForkJoinPool.
+ * - Each partition folds its chunks into its own accumulator (e.g. a TopK heap), no shared state
+ * - Accumulators are merged once all partitions are done
+ * - Candidate sets smaller than one partition are scored inline on the caller thread
+ * - The pool is instrumented as executor.* metrics under the name "scoring"
+ */
+@Component
+public class SearchExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchExecutor.class);
+
+    private final ForkJoinPool pool;
+    private final int partitionSize;
+
+    public SearchExecutor(@Value("${rag.scoring.parallelism:0}") int parallelism,
+                          @Value("${rag.scoring.partition-size:2048}") int partitionSize,
+                          MeterRegistry meterRegistry) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.partitionSize = Math.max(1, partitionSize);
+        this.pool = new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("search-scoring-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        new ExecutorServiceMetrics(pool, "scoring", List.of()).bindTo(meterRegistry);
+        logger.info("Search scoring pool: {} threads, partitions of {} chunks", threads, this.partitionSize);
+    }
+
+    /**
+     * Fold every candidate into per-partition accumulators and merge them.
+     */
+    public <A> A score(List<DocumentEmbedding> candidates, Supplier<A> accumulator,
+                       BiConsumer<A, DocumentEmbedding> scorer, BinaryOperator<A> merger) {
+        if (candidates.size() <= partitionSize) {
+            return scorePartition(candidates, accumulator, scorer);
+        }
+        List<ForkJoinTask<A>> tasks = new ArrayList<>();
+        for (int from = 0; from < candidates.size(); from += partitionSize) {
+            List<DocumentEmbedding> partition = candidates.subList(from, Math.min(from + partitionSize, candidates.size()));
+            tasks.add(pool.submit(() -> scorePartition(partition, accumulator, scorer)));
+        }
+        A result = null;
+        for (ForkJoinTask<A> task : tasks) {
+            A partial = task.join();
+            result = result == null ? partial : merger.apply(result, partial);
+        }
+        return result;
+    }
+
+    private static <A> A scorePartition(List<DocumentEmbedding> partition, Supplier<A> accumulator,
+                                        BiConsumer<A, DocumentEmbedding> scorer) {
+        A acc = accumulator.get();
+        for (DocumentEmbedding chunk : partition) {
+            scorer.accept(acc, chunk);
+        }
+        return acc;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
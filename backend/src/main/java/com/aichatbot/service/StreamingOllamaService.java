@@ -0,0 +1,130 @@
+package com.aichatbot.service;
+
+import com.aichatbot.config.AppExecutors;
+import com.fasterxml.jackson.core.JsonParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Token streaming against Ollama's NDJSON /api/generate stream.
+ * - Each response fragment is handed to the caller as soon as its line arrives, parsed
+ *   incrementally with Jackson's streaming parser
+ * - The returned future completes with the full text
+ * - Cancelling the future closes the connection, which makes Ollama stop generating
+ */
+@Service
+public class StreamingOllamaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingOllamaService.class);
+
+    private final HttpClient httpClient;
+    private final OllamaService ollamaService;
+    private final AppExecutors executors;
+
+    public StreamingOllamaService(@Qualifier("ollamaHttpClient") HttpClient httpClient, OllamaService ollamaService,
+                                  AppExecutors executors) {
+        this.httpClient = httpClient;
+        this.ollamaService = ollamaService;
+        this.executors = executors;
+    }
+
+    /**
+     * Start a streaming generation. onToken is called on the reading thread (an llm executor thread); if it throws
+     * (e.g. the client went away) the generation is aborted.
+     */
+    public CompletableFuture<String> generate(String prompt, Consumer<String> onToken) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        AtomicReference<InputStream> body = new AtomicReference<>();
+
+        HttpRequest request;
+        try {
+            request = ollamaService.buildRequest(prompt, true);
+        } catch (IOException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        CompletableFuture<HttpResponse<InputStream>> exchange =
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+
+        // Cancellation (or any other early completion) tears down the upstream request
+        result.whenComplete((text, ex) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+                closeQuietly(body.get());
+                logger.info("Streaming generation cancelled");
+            }
+        });
+
+        exchange.thenAccept(response -> {
+            body.set(response.body());
+            // The body is read with blocking calls: keep them on the llm executor, off the HttpClient's own threads
+            try {
+                executors.llm().execute(() -> read(response, result, onToken));
+            } catch (RejectedExecutionException e) {
+                closeQuietly(response.body());
+                result.completeExceptionally(e);
+            }
+        }).exceptionally(ex -> {
+            if (!result.isDone()) {
+                logger.error("Failed to communicate with Ollama", ex);
+            }
+            result.completeExceptionally(ex);
+            return null;
+        });
+
+        return result;
+    }
+
+    /**
+     * Read the NDJSON stream to the end, forwarding fragments and completing the result.
+     */
+    private void read(HttpResponse<InputStream> response, CompletableFuture<String> result, Consumer<String> onToken) {
+        if (result.isDone()) {
+            closeQuietly(response.body());
+            return;
+        }
+        try (InputStream in = response.body()) {
+            if (response.statusCode() != 200) {
+                String error = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                logger.error("Ollama API error: {} - {}", response.statusCode(), error);
+                throw new IOException("Ollama API returned status: " + response.statusCode());
+            }
+
+            // NDJSON is a sequence of root-level objects, read one at a time as they arrive
+            OllamaService.Generation generation = new OllamaService.Generation();
+            try (JsonParser parser = ollamaService.createParser(in)) {
+                while (!result.isDone() && !generation.done && ollamaService.readChunk(parser, generation, onToken)) {
+                    // fragments are forwarded by readChunk
+                }
+            }
+            ollamaService.recordMetrics(generation, "stream");
+            result.complete(generation.text.toString());
+        } catch (Exception e) {
+            if (!result.isDone()) {
+                logger.warn("Streaming generation failed: {}", e.getMessage());
+            }
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void closeQuietly(InputStream in) {
+        if (in == null) return;
+        try {
+            in.close();
+        } catch (IOException ignored) { }
+    }
+}
@@ -0,0 +1,107 @@
+package com.aichatbot.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bounded min-heap keeping the k highest-scoring items.
+ * - Scores live in a primitive double[] next to the items, no per-item wrapper objects
+ * - Items scoring at or below the threshold are never admitted
+ * - Heaps from separately scored partitions are combined with merge()
+ * Not thread-safe: one instance per partition, merged afterwards.
+ */
+final class TopK<T> {
+
+    private final int capacity;
+    private final double threshold;
+    private final double[] scores;
+    private final Object[] items;
+    private int size;
+
+    TopK(int capacity) {
+        this(capacity, Double.NEGATIVE_INFINITY);
+    }
+
+    TopK(int capacity, double threshold) {
+        this.capacity = Math.max(0, capacity);
+        this.threshold = threshold;
+        this.scores = new double[this.capacity];
+        this.items = new Object[this.capacity];
+    }
+
+    void offer(double score, T item) {
+        if (score <= threshold || capacity == 0) {
+            return;
+        }
+        if (size < capacity) {
+            scores[size] = score;
+            items[size] = item;
+            siftUp(size++);
+        } else if (score > scores[0]) {
+            scores[0] = score;
+            items[0] = item;
+            siftDown(0);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    TopK<T> merge(TopK<T> other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.scores[i], (T) other.items[i]);
+        }
+        return this;
+    }
+
+    int size() {
+        return size;
+    }
+
+    double sum() {
+        double sum = 0.0;
+        for (int i = 0; i < size; i++) sum += scores[i];
+        return sum;
+    }
+
+    /**
+     * Items best first; the heap is left unchanged.
+     */
+    @SuppressWarnings("unchecked")
+    List<T> toSortedList() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+        List<T> result = new ArrayList<>(size);
+        for (Integer i : order) result.add((T) items[i]);
+        return result;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (scores[parent] <= scores[i]) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) break;
+            int smallest = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+            if (scores[i] <= scores[smallest]) break;
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        Object item = items[a];
+        items[a] = items[b];
+        items[b] = item;
+    }
+}
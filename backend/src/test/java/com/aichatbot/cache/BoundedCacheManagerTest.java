@@ -0,0 +1,52 @@
+package com.aichatbot.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedCacheManagerTest {
+
+    private final AtomicLong generation = new AtomicLong();
+    private final Cache cache = new BoundedCacheManager(name -> new BoundedCacheManager.Spec(10, Duration.ofMinutes(5)),
+            generation::get, null).getCache("test");
+
+    @Test
+    void dropsPutAfterMissWhenGenerationMoved() {
+        assertThat(cache.get("key")).isNull();
+        generation.incrementAndGet(); // index changed while the value was being computed
+        cache.put("key", "stale");
+
+        assertThat(cache.get("key")).isNull();
+    }
+
+    @Test
+    void storesPutAfterMissWhenGenerationUnchanged() {
+        assertThat(cache.get("key")).isNull();
+        cache.put("key", "fresh");
+
+        assertThat(cache.get("key").get()).isEqualTo("fresh");
+    }
+
+    @Test
+    void valueLoaderResultIsDroppedWhenGenerationMoved() {
+        String loaded = cache.get("key", () -> {
+            generation.incrementAndGet();
+            return "stale";
+        });
+
+        assertThat(loaded).isEqualTo("stale");
+        assertThat(cache.get("key")).isNull();
+    }
+
+    @Test
+    void generationChangeClearsEntries() {
+        cache.put("key", "value");
+        generation.incrementAndGet();
+
+        assertThat(cache.get("key")).isNull();
+    }
+}
@@ -0,0 +1,82 @@
+package com.aichatbot.controller;
+
+import com.aichatbot.dto.ChatRequest;
+import com.aichatbot.dto.ChatResponse;
+import com.aichatbot.service.ChatService;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class ChatControllerTest {
+
+    private final ChatService chatService = mock(ChatService.class);
+    private final CompletableFuture<ChatResponse> generation = new CompletableFuture<>();
+    @SuppressWarnings("unchecked")
+    private final ArgumentCaptor<Consumer<String>> onToken = ArgumentCaptor.forClass(Consumer.class);
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        when(chatService.streamMessage(any(ChatRequest.class), onToken.capture())).thenReturn(generation);
+        mvc = MockMvcBuilders.standaloneSetup(new ChatController(chatService)).build();
+    }
+
+    @Test
+    void streamsEachTokenAsItsOwnEvent() throws Exception {
+        MvcResult result = startStream();
+
+        onToken.getValue().accept("Hel");
+        assertThat(result.getResponse().getContentAsString())
+                .contains("event:token", "{\"token\":\"Hel\"}")
+                .doesNotContain("event:done");
+
+        onToken.getValue().accept("lo");
+        generation.complete(ChatResponse.success("Hello", "s1", 5, List.of(), "test-model"));
+
+        String body = result.getResponse().getContentAsString();
+        assertThat(body).contains("{\"token\":\"lo\"}", "event:done", "\"response\":\"Hello\"");
+        assertThat(body.indexOf("{\"token\":\"lo\"}")).isLessThan(body.indexOf("event:done"));
+    }
+
+    @Test
+    void clientDisconnectCancelsTheGeneration() throws Exception {
+        MvcResult result = startStream();
+        onToken.getValue().accept("Hel");
+
+        // What the servlet container reports when the client goes away mid-stream
+        MockAsyncContext context = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : context.getListeners()) {
+            listener.onError(new AsyncEvent(context, new IOException("Broken pipe")));
+        }
+
+        assertThat(generation.isCancelled()).isTrue();
+    }
+
+    private MvcResult startStream() throws Exception {
+        return mvc.perform(post("/chat/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .content("{\"message\":\"hello\",\"sessionId\":\"s1\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+}
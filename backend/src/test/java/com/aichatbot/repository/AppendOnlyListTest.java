@@ -0,0 +1,54 @@
+package com.aichatbot.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AppendOnlyListTest {
+
+    @Test
+    void removingAnAbsentElementChangesNothing() {
+        AppendOnlyList<String> list = new AppendOnlyList<>();
+        list.addAll(List.of("a", "b"));
+
+        assertThat(list.remove("missing")).isFalse();
+        assertThat(list.removeAll(List.of("missing", "b", "b"))).isEqualTo(1);
+        assertThat(list.remove("b")).isFalse();
+
+        assertThat(list.size()).isEqualTo(1);
+        assertThat(list.snapshot().toList()).containsExactly("a");
+    }
+
+    @Test
+    void sizeStaysExactAcrossTombstoneRebuilds() {
+        AppendOnlyList<Integer> list = new AppendOnlyList<>();
+        list.addAll(IntStream.range(0, 5000).boxed().collect(Collectors.toList()));
+
+        // Absent elements mixed in must not count towards the rebuild threshold or the size
+        for (int i = 0; i < 5000; i += 2) {
+            list.removeAll(List.of(i, -1 - i));
+        }
+
+        assertThat(list.size()).isEqualTo(2500);
+        assertThat(list.snapshot().toList()).hasSize(2500).allMatch(i -> i % 2 == 1);
+    }
+
+    @Test
+    void readdsRemovedElementsOnceAndIgnoresDuplicates() {
+        AppendOnlyList<String> list = new AppendOnlyList<>();
+        list.add("a");
+        list.add("a");
+        list.remove("a");
+        list.add("a");
+
+        assertThat(list.size()).isEqualTo(1);
+        assertThat(list.snapshot().toList()).containsExactly("a");
+        assertThat(list.removeIf("a"::equals)).isEqualTo(1);
+        assertThat(list.remove("a")).isFalse();
+        assertThat(list.isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,87 @@
+package com.aichatbot.repository;
+
+import com.aichatbot.model.DocumentEmbedding;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmbeddingSegmentTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsEveryField() throws Exception {
+        List<DocumentEmbedding> written = sample();
+        Path file = dir.resolve("embeddings.seg");
+        EmbeddingSegment.write(file, written);
+
+        assertSameEmbeddings(EmbeddingSegment.read(file), written);
+    }
+
+    @Test
+    void readsValuesStraddlingMappingWindows() throws Exception {
+        List<DocumentEmbedding> written = sample();
+        Path file = dir.resolve("embeddings.seg");
+        EmbeddingSegment.write(file, written);
+
+        // 64-byte windows: offsets, strings and vectors all cross window boundaries
+        assertSameEmbeddings(EmbeddingSegment.read(file, 6), written);
+    }
+
+    @Test
+    void contentOffsetsPointAtTheWrittenText() throws Exception {
+        List<DocumentEmbedding> written = sample();
+        Path file = dir.resolve("embeddings.seg");
+        long[] offsets = EmbeddingSegment.write(file, written);
+
+        EmbeddingSegment.Mapping mapping = EmbeddingSegment.map(file);
+        assertThat(mapping.content(offsets[0]).get()).isEqualTo(written.get(0).getContentChunk());
+        assertThat(mapping.content(offsets[1]).get()).isEqualTo(written.get(1).getContentChunk());
+        assertThat(offsets[2]).isEqualTo(-1);
+    }
+
+    private static List<DocumentEmbedding> sample() {
+        DocumentEmbedding first = new DocumentEmbedding("docs/install.md", "acme", "docs", "main",
+                "Install the operator, then configure the café tablespace.", 0);
+        first.setId("id-1");
+        first.setFileHash("sha-1");
+        first.setEmbeddingId("nomic-embed-text");
+        first.setVector(new float[]{0.6f, 0.8f, 0f});
+
+        DocumentEmbedding second = new DocumentEmbedding("docs/install.md", "acme", "docs", "main",
+                "Second chunk ".repeat(20), 1);
+        second.setId("id-2");
+        second.setFileHash("sha-1");
+
+        DocumentEmbedding marker = DocumentEmbedding.fileMarker("README", "acme", "docs", "main", "sha-2");
+        marker.setId("id-3");
+        marker.setCreatedAt(LocalDateTime.of(2024, 1, 2, 3, 4, 5));
+        return List.of(first, second, marker);
+    }
+
+    private static void assertSameEmbeddings(List<DocumentEmbedding> read, List<DocumentEmbedding> written) {
+        assertThat(read).hasSameSizeAs(written);
+        for (int i = 0; i < written.size(); i++) {
+            DocumentEmbedding expected = written.get(i);
+            DocumentEmbedding actual = read.get(i);
+            assertThat(actual.getId()).isEqualTo(expected.getId());
+            assertThat(actual.getFilePath()).isEqualTo(expected.getFilePath());
+            assertThat(actual.getRepositoryOwner()).isEqualTo(expected.getRepositoryOwner());
+            assertThat(actual.getRepositoryName()).isEqualTo(expected.getRepositoryName());
+            assertThat(actual.getBranchName()).isEqualTo(expected.getBranchName());
+            assertThat(actual.getContentChunk()).isEqualTo(expected.getContentChunk());
+            assertThat(actual.getChunkIndex()).isEqualTo(expected.getChunkIndex());
+            assertThat(actual.getFileHash()).isEqualTo(expected.getFileHash());
+            assertThat(actual.getEmbeddingId()).isEqualTo(expected.getEmbeddingId());
+            assertThat(actual.getVector()).isEqualTo(expected.getVector());
+            assertThat(actual.getCreatedAt()).isEqualTo(expected.getCreatedAt());
+            assertThat(actual.getUpdatedAt()).isEqualTo(expected.getUpdatedAt());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.aichatbot.repository;
+
+import com.aichatbot.model.DocumentEmbedding;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileEmbeddingStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void migratesJsonlJournalToSegment() throws Exception {
+        Path legacy = dir.resolve("legacy");
+        Files.createDirectories(legacy);
+        FileEmbeddingStore codec = new FileEmbeddingStore(dir.resolve("codec"));
+        Files.write(legacy.resolve("embeddings.jsonl"), List.of(
+                codec.serialize(chunk("a-0", "acme", "docs", "a.md", 0, "Alpha text about operators")),
+                codec.serialize(chunk("a-1", "acme", "docs", "a.md", 1, "More alpha text about tablespaces")),
+                codec.serialize(chunk("b-0", "acme", "docs", "b.md", 0, "Beta text"))));
+        codec.close();
+
+        try (FileEmbeddingStore store = new FileEmbeddingStore(legacy)) {
+            assertThat(Files.exists(legacy.resolve("embeddings.seg"))).isTrue();
+            assertThat(Files.exists(legacy.resolve("embeddings.jsonl.bak"))).isTrue();
+            assertThat(Files.size(legacy.resolve("embeddings.jsonl"))).isZero();
+            assertThat(contents(store)).containsOnlyKeys("a-0", "a-1", "b-0");
+        }
+        try (FileEmbeddingStore reopened = new FileEmbeddingStore(legacy)) {
+            assertThat(contents(reopened)).containsEntry("a-1", "More alpha text about tablespaces").hasSize(3);
+        }
+    }
+
+    @Test
+    void keepsTextReadableAcrossCompactionAndRestart() {
+        try (FileEmbeddingStore store = new FileEmbeddingStore(dir)) {
+            store.saveAllAsync(List.of(
+                    chunk("a-0", "acme", "docs", "a.md", 0, "Alpha text"),
+                    chunk("b-0", "acme", "other", "b.md", 0, "Beta text"))).join();
+            // Repository deletion compacts: the remaining chunk is now served from the new segment
+            store.deleteByRepositoryOwnerAndRepositoryName("acme", "other");
+            assertThat(contents(store)).containsExactly(Map.entry("a-0", "Alpha text"));
+            store.saveAllAsync(List.of(chunk("c-0", "acme", "docs", "c.md", 0, "Gamma text"))).join();
+            store.deleteByRepositoryOwnerAndRepositoryName("acme", "missing");
+        }
+        try (FileEmbeddingStore reopened = new FileEmbeddingStore(dir)) {
+            assertThat(contents(reopened)).containsOnly(Map.entry("a-0", "Alpha text"), Map.entry("c-0", "Gamma text"));
+            assertThat(reopened.findCandidates(List.of("gamma"))).extracting(DocumentEmbedding::getId).containsExactly("c-0");
+        }
+    }
+
+    @Test
+    void replaysTombstonesAndFileMarkers() {
+        try (FileEmbeddingStore store = new FileEmbeddingStore(dir)) {
+            DocumentEmbedding a = chunk("a-0", "acme", "docs", "a.md", 0, "Alpha text");
+            a.setFileHash("sha-a");
+            store.saveAllAsync(List.of(a, chunk("b-0", "acme", "docs", "b.md", 0, "Beta text"),
+                    DocumentEmbedding.fileMarker("empty.md", "acme", "docs", "main", "sha-empty"))).join();
+            store.deleteByFilePaths("acme", "docs", List.of("b.md"));
+        }
+        try (FileEmbeddingStore reopened = new FileEmbeddingStore(dir)) {
+            assertThat(contents(reopened)).containsOnlyKeys("a-0");
+            assertThat(reopened.fileHashes("acme", "docs"))
+                    .containsEntry("a.md", "sha-a")
+                    .containsEntry("empty.md", "sha-empty")
+                    .doesNotContainKey("b.md");
+        }
+    }
+
+    @Test
+    void keepsSamePathInDifferentRepositoriesApart() {
+        try (FileEmbeddingStore store = new FileEmbeddingStore(dir)) {
+            store.saveAllAsync(List.of(chunk("a-0", "acme", "docs", "README.txt", 0, "Docs readme"),
+                    chunk("b-0", "acme", "tools", "README.txt", 0, "Tools readme"))).join();
+
+            assertThat(store.findByFilePath("README.txt")).extracting(DocumentEmbedding::getId)
+                    .containsExactlyInAnyOrder("a-0", "b-0");
+
+            store.deleteByFilePaths("acme", "docs", List.of("README.txt"));
+            assertThat(store.findByFilePath("README.txt")).extracting(DocumentEmbedding::getId).containsExactly("b-0");
+
+            // Re-adding after the list for a key was emptied and unlinked
+            store.saveAllAsync(List.of(chunk("a-1", "acme", "docs", "README.txt", 1, "Docs readme again"))).join();
+            assertThat(store.findByFilePath("README.txt")).extracting(DocumentEmbedding::getId)
+                    .containsExactlyInAnyOrder("a-1", "b-0");
+        }
+    }
+
+    @Test
+    void replacesAFileInOneStepAndRecordsItsHashOnceDurable() {
+        try (FileEmbeddingStore store = new FileEmbeddingStore(dir)) {
+            DocumentEmbedding old = chunk("a-0", "acme", "docs", "a.md", 0, "Old alpha text");
+            old.setFileHash("sha-1");
+            store.saveAllAsync(List.of(old, chunk("b-0", "acme", "docs", "b.md", 0, "Beta text"))).join();
+
+            DocumentEmbedding first = chunk("a-1", "acme", "docs", "a.md", 0, "New alpha text");
+            DocumentEmbedding second = chunk("a-2", "acme", "docs", "a.md", 1, "More new alpha text");
+            first.setFileHash("sha-2");
+            second.setFileHash("sha-2");
+            store.replaceFile("acme", "docs", "a.md", List.of(first, second)).join();
+
+            assertThat(store.findByFilePath("a.md")).extracting(DocumentEmbedding::getId)
+                    .containsExactlyInAnyOrder("a-1", "a-2");
+            assertThat(store.fileHashes("acme", "docs")).containsEntry("a.md", "sha-2").containsEntry("b.md", null);
+
+            // A file that no longer yields chunks is replaced by its marker
+            store.replaceFile("acme", "docs", "b.md",
+                    List.of(DocumentEmbedding.fileMarker("b.md", "acme", "docs", "main", "sha-b"))).join();
+        }
+        try (FileEmbeddingStore reopened = new FileEmbeddingStore(dir)) {
+            assertThat(contents(reopened)).containsOnly(Map.entry("a-1", "New alpha text"), Map.entry("a-2", "More new alpha text"));
+            assertThat(reopened.fileHashes("acme", "docs")).containsOnly(Map.entry("a.md", "sha-2"), Map.entry("b.md", "sha-b"));
+        }
+    }
+
+    @Test
+    void movesUnreadableSegmentAsideInsteadOfCompactingOverIt() throws Exception {
+        try (FileEmbeddingStore store = new FileEmbeddingStore(dir)) {
+            store.saveAllAsync(List.of(chunk("a-0", "acme", "docs", "a.md", 0, "Alpha text"),
+                    chunk("b-0", "acme", "other", "b.md", 0, "Beta text"))).join();
+            store.deleteByRepositoryOwnerAndRepositoryName("acme", "other");
+            store.saveAllAsync(List.of(chunk("c-0", "acme", "docs", "c.md", 0, "Gamma text"))).join();
+        }
+        byte[] garbage = "not a segment".getBytes(StandardCharsets.UTF_8);
+        Files.write(dir.resolve("embeddings.seg"), garbage);
+
+        try (FileEmbeddingStore reopened = new FileEmbeddingStore(dir)) {
+            assertThat(contents(reopened)).containsOnlyKeys("c-0");
+        }
+        assertThat(Files.exists(dir.resolve("embeddings.seg"))).isFalse();
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> aside = files.filter(f -> f.getFileName().toString().startsWith("embeddings.seg.unreadable-"))
+                    .collect(Collectors.toList());
+            assertThat(aside).hasSize(1);
+            assertThat(Files.readAllBytes(aside.get(0))).isEqualTo(garbage);
+        }
+    }
+
+    private static Map<String, String> contents(EmbeddingStore store) {
+        return store.findAll().stream().collect(Collectors.toMap(DocumentEmbedding::getId, DocumentEmbedding::getContentChunk));
+    }
+
+    private static DocumentEmbedding chunk(String id, String owner, String repo, String path, int index, String text) {
+        DocumentEmbedding e = new DocumentEmbedding(path, owner, repo, "main", text, index);
+        e.setId(id);
+        return e;
+    }
+}
@@ -0,0 +1,89 @@
+package com.aichatbot.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HnswIndexTest {
+
+    private static final int DIMENSIONS = 32;
+    private static final int COUNT = 2000;
+
+    private final Random random = new Random(42);
+    private final float[][] vectors = new float[COUNT][];
+    private final HnswIndex index = new HnswIndex();
+
+    HnswIndexTest() {
+        for (int i = 0; i < COUNT; i++) {
+            vectors[i] = randomUnitVector();
+            index.add(id(i), vectors[i]);
+        }
+    }
+
+    @Test
+    void findsAStoredVectorAsItsOwnNearestNeighbour() {
+        List<HnswIndex.Hit> hits = index.search(vectors[123], 5, id -> true);
+
+        assertThat(hits).hasSize(5);
+        assertThat(hits.get(0).getId()).isEqualTo(id(123));
+        assertThat(hits.get(0).getSimilarity()).isCloseTo(1.0, within(1e-6));
+        assertThat(hits).isSortedAccordingTo(Comparator.comparingDouble(HnswIndex.Hit::getSimilarity).reversed());
+    }
+
+    @Test
+    void recallMatchesExactSearch() {
+        int k = 10;
+        int found = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomUnitVector();
+            Set<String> exact = IntStream.range(0, COUNT).boxed()
+                    .sorted(Comparator.comparingDouble((Integer i) -> HnswIndex.dot(query, vectors[i])).reversed())
+                    .limit(k)
+                    .map(HnswIndexTest::id)
+                    .collect(Collectors.toSet());
+            for (HnswIndex.Hit hit : index.search(query, k, id -> true)) {
+                if (exact.contains(hit.getId())) found++;
+            }
+        }
+        assertThat((double) found / (queries * k)).isGreaterThan(0.9);
+    }
+
+    @Test
+    void honoursFilterAndRemovals() {
+        Set<String> allowed = new HashSet<>();
+        for (int i = 0; i < COUNT; i += 10) allowed.add(id(i));
+        index.remove(id(120));
+
+        List<HnswIndex.Hit> hits = index.search(vectors[120], 10, allowed::contains);
+
+        assertThat(hits).hasSize(10);
+        assertThat(hits).extracting(HnswIndex.Hit::getId).allMatch(allowed::contains).doesNotContain(id(120));
+        assertThat(index.size()).isEqualTo(COUNT - 1);
+    }
+
+    private float[] randomUnitVector() {
+        float[] v = new float[DIMENSIONS];
+        double norm = 0.0;
+        for (int i = 0; i < DIMENSIONS; i++) {
+            v[i] = (float) random.nextGaussian();
+            norm += v[i] * v[i];
+        }
+        norm = Math.sqrt(norm);
+        for (int i = 0; i < DIMENSIONS; i++) v[i] = (float) (v[i] / norm);
+        return v;
+    }
+
+    private static String id(int i) {
+        return "chunk-" + i;
+    }
+}
@@ -0,0 +1,66 @@
+package com.aichatbot.service;
+
+import com.aichatbot.config.AppExecutors;
+import com.aichatbot.model.DocumentEmbedding;
+import com.aichatbot.repository.FileEmbeddingStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentProcessingServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private FileEmbeddingStore store;
+    private AppExecutors executors;
+    private SearchExecutor searchExecutor;
+    private DocumentProcessingService service;
+
+    @BeforeEach
+    void start() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        store = new FileEmbeddingStore(dir);
+        executors = new AppExecutors(new MockEnvironment(), registry);
+        searchExecutor = new SearchExecutor(1, 2048, registry);
+        service = new DocumentProcessingService(store,
+                new OllamaEmbeddingService(HttpClient.newHttpClient(), new ObjectMapper()),
+                new Bm25Scorer(store, 1.2, 0.75, 0.5, 1.0, 2.0), searchExecutor, executors, registry, "bm25");
+    }
+
+    @AfterEach
+    void stop() {
+        executors.shutdown();
+        searchExecutor.shutdown();
+        store.close();
+    }
+
+    @Test
+    void bestMatchingFileIncludesChunksWithoutQueryTerms() {
+        store.saveAllAsync(List.of(
+                chunk("guide-2", "guide.md", 2, "Closing notes"),
+                chunk("guide-0", "guide.md", 0, "Introduction"),
+                chunk("guide-1", "guide.md", 1, "Tablespaces hold the data files"),
+                chunk("other-0", "other.md", 0, "Unrelated text"))).join();
+
+        assertThat(service.findBestMatchingFile("tablespaces"))
+                .extracting(DocumentEmbedding::getId)
+                .containsExactly("guide-0", "guide-1", "guide-2");
+    }
+
+    private static DocumentEmbedding chunk(String id, String path, int index, String text) {
+        DocumentEmbedding e = new DocumentEmbedding(path, "acme", "docs", "main", text, index);
+        e.setId(id);
+        return e;
+    }
+}
@@ -0,0 +1,231 @@
+package com.aichatbot.service;
+
+import com.aichatbot.config.AppExecutors;
+import com.aichatbot.config.GitHubRepositoryConfig;
+import com.aichatbot.dto.GitHubFile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class GitHubServiceTest {
+
+    @TempDir
+    Path dir;
+
+    // Canned responses by request path (and query), served by a local stand-in for the GitHub API
+    private final Map<String, byte[]> responses = new ConcurrentHashMap<>();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private AppExecutors executors;
+    private GitHubService service;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String query = exchange.getRequestURI().getRawQuery();
+            String target = exchange.getRequestURI().getPath() + (query == null ? "" : "?" + query);
+            requests.add(target);
+            byte[] body = responses.get(target);
+            exchange.sendResponseHeaders(body == null ? 404 : 200, body == null ? -1 : body.length);
+            if (body != null) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        executors = new AppExecutors(new MockEnvironment(), registry);
+        service = new GitHubService(new ObjectMapper(), new GitHubRepositoryConfig(),
+                new GitHubRateLimiter(0, registry), executors, registry);
+        ReflectionTestUtils.setField(service, "githubBaseUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(service, "githubToken", "test");
+        ReflectionTestUtils.setField(service, "crawler", "trees");
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+        executors.shutdown();
+    }
+
+    @Test
+    void listsWholeTreeWithOneRequest() {
+        respond("/repos/owner/repo/git/trees/main?recursive=1", """
+                {"sha": "root", "truncated": false, "tree": [
+                  {"path": "pom.xml", "type": "blob", "sha": "p1", "size": 10},
+                  {"path": "src", "type": "tree", "sha": "s1"},
+                  {"path": "src/App.java", "type": "blob", "sha": "a1", "size": 12}
+                ]}""");
+
+        List<GitHubFile> files = service.listRepository(repository(null)).join();
+
+        assertThat(files).extracting(GitHubFile::getPath, GitHubFile::getSha, GitHubFile::getSize)
+                .containsExactly(tuple("pom.xml", "p1", 10L), tuple("src/App.java", "a1", 12L));
+        assertThat(requests).hasSize(1);
+    }
+
+    @Test
+    void completesTruncatedTreeSubtreeBySubtree() {
+        respond("/repos/owner/repo/git/trees/main?recursive=1", """
+                {"sha": "root", "truncated": true, "tree": [
+                  {"path": "pom.xml", "type": "blob", "sha": "p1", "size": 10}
+                ]}""");
+        respond("/repos/owner/repo/git/trees/root", """
+                {"sha": "root", "truncated": false, "tree": [
+                  {"path": "pom.xml", "type": "blob", "sha": "p1", "size": 10},
+                  {"path": "src", "type": "tree", "sha": "s1"},
+                  {"path": "docs", "type": "tree", "sha": "d1"}
+                ]}""");
+        respond("/repos/owner/repo/git/trees/s1?recursive=1", """
+                {"sha": "s1", "truncated": false, "tree": [
+                  {"path": "App.java", "type": "blob", "sha": "a1", "size": 12},
+                  {"path": "util", "type": "tree", "sha": "u1"},
+                  {"path": "util/Io.java", "type": "blob", "sha": "i1", "size": 7}
+                ]}""");
+        // A subtree that is itself truncated is split again
+        respond("/repos/owner/repo/git/trees/d1?recursive=1", """
+                {"sha": "d1", "truncated": true, "tree": []}""");
+        respond("/repos/owner/repo/git/trees/d1", """
+                {"sha": "d1", "truncated": false, "tree": [
+                  {"path": "guide.md", "type": "blob", "sha": "g1", "size": 3},
+                  {"path": "img", "type": "tree", "sha": "m1"}
+                ]}""");
+        respond("/repos/owner/repo/git/trees/m1?recursive=1", """
+                {"sha": "m1", "truncated": false, "tree": [
+                  {"path": "logo.md", "type": "blob", "sha": "l1", "size": 4}
+                ]}""");
+
+        List<GitHubFile> files = service.listRepository(repository(null)).join();
+
+        assertThat(files).extracting(GitHubFile::getPath, GitHubFile::getSha)
+                .containsExactlyInAnyOrder(tuple("pom.xml", "p1"), tuple("src/App.java", "a1"),
+                        tuple("src/util/Io.java", "i1"), tuple("docs/guide.md", "g1"), tuple("docs/img/logo.md", "l1"));
+        assertThat(requests).noneMatch(r -> r.contains("/contents/"));
+    }
+
+    @Test
+    void fallsBackToContentsCrawlerWhenTreesApiIsUnavailable() {
+        respond("/repos/owner/repo/contents/?ref=main", """
+                [{"name": "pom.xml", "path": "pom.xml", "type": "file", "sha": "p1", "size": 10},
+                 {"name": "src", "path": "src", "type": "dir", "sha": "s1"}]""");
+        respond("/repos/owner/repo/contents/src?ref=main", """
+                [{"name": "App.java", "path": "src/App.java", "type": "file", "sha": "a1", "size": 12}]""");
+
+        List<GitHubFile> files = service.listRepository(repository(null)).join();
+
+        assertThat(files).extracting(GitHubFile::getPath).containsExactly("pom.xml", "src/App.java");
+    }
+
+    @Test
+    void fallsBackToContentsCrawlerWhenTruncatedSubtreeCannotBeListed() {
+        respond("/repos/owner/repo/git/trees/main?recursive=1", """
+                {"sha": "root", "truncated": true, "tree": []}""");
+        respond("/repos/owner/repo/git/trees/root", """
+                {"sha": "root", "truncated": false, "tree": [
+                  {"path": "src", "type": "tree", "sha": "s1"}
+                ]}""");
+        respond("/repos/owner/repo/contents/?ref=main", """
+                [{"name": "src", "path": "src", "type": "dir", "sha": "s1"}]""");
+        respond("/repos/owner/repo/contents/src?ref=main", """
+                [{"name": "App.java", "path": "src/App.java", "type": "file", "sha": "a1", "size": 12}]""");
+
+        List<GitHubFile> files = service.listRepository(repository(null)).join();
+
+        assertThat(files).extracting(GitHubFile::getPath).containsExactly("src/App.java");
+    }
+
+    @Test
+    void stripsTheWrapperDirectoryOfGitHubTarballs() throws IOException {
+        responses.put("/repos/owner/repo/tarball/main", tarGz(
+                "owner-repo-abc1234/", null,
+                "owner-repo-abc1234/src/App.java", "class App {}",
+                "owner-repo-abc1234/pom.xml", "<project/>"));
+
+        assertThat(streamedPaths(repository(null))).containsExactly("src/App.java", "pom.xml");
+    }
+
+    @Test
+    void keepsLeadingDirectoryOfLocalArchiveWithFilesOutsideIt() throws IOException {
+        Path archive = dir.resolve("repo.tar.gz");
+        Files.write(archive, tarGz(
+                "src/", null,
+                "src/App.java", "class App {}",
+                "pom.xml", "<project/>"));
+
+        assertThat(streamedPaths(repository(archive))).containsExactly("src/App.java", "pom.xml");
+    }
+
+    @Test
+    void stripsDirectorySharedByEveryEntryOfLocalArchive() throws IOException {
+        Path archive = dir.resolve("repo.tar.gz");
+        Files.write(archive, tarGz(
+                "repo-main/src/App.java", "class App {}",
+                "repo-main/pom.xml", "<project/>"));
+
+        assertThat(streamedPaths(repository(archive))).containsExactly("src/App.java", "pom.xml");
+    }
+
+    private void respond(String target, String json) {
+        responses.put(target, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<String> streamedPaths(GitHubRepositoryConfig.Repository repository) {
+        List<String> paths = new ArrayList<>();
+        assertThat(service.streamRepositoryArchive(repository, file -> paths.add(file.getPath()))).isTrue();
+        return paths;
+    }
+
+    private static GitHubRepositoryConfig.Repository repository(Path archive) {
+        GitHubRepositoryConfig.Repository repository = new GitHubRepositoryConfig.Repository();
+        repository.setOwner("owner");
+        repository.setName("repo");
+        repository.setBranch("main");
+        repository.setArchive(archive == null ? null : archive.toString());
+        return repository;
+    }
+
+    // Alternating entry names and contents; a null content makes a directory entry
+    private static byte[] tarGz(String... entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new GzipCompressorOutputStream(bytes))) {
+            for (int i = 0; i < entries.length; i += 2) {
+                TarArchiveEntry entry = new TarArchiveEntry(entries[i]);
+                byte[] content = entries[i + 1] == null ? new byte[0] : entries[i + 1].getBytes(StandardCharsets.UTF_8);
+                entry.setSize(content.length);
+                tar.putArchiveEntry(entry);
+                tar.write(content);
+                tar.closeArchiveEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,133 @@
+package com.aichatbot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class OllamaEmbeddingServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Local stand-in for Ollama's /api/embeddings, answering with the current status and body
+    private final List<JsonNode> requests = new CopyOnWriteArrayList<>();
+    private volatile int status = 200;
+    private volatile String body;
+    private volatile CountDownLatch hold; // when set, responses wait for it
+    private HttpServer server;
+    private OllamaEmbeddingService service;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/embeddings", exchange -> {
+            requests.add(objectMapper.readTree(exchange.getRequestBody()));
+            awaitHold();
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+
+        service = new OllamaEmbeddingService(HttpClient.newHttpClient(), objectMapper);
+        ReflectionTestUtils.setField(service, "ollamaBaseUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(service, "embeddingModel", "test-embed");
+        ReflectionTestUtils.setField(service, "enabled", true);
+    }
+
+    @AfterEach
+    void stop() {
+        if (hold != null) hold.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void returnsUnitLengthVectorFromOllama() {
+        body = "{\"embedding\": [3.0, 4.0, 0.0]}";
+
+        float[] vector = service.embed("what is a tablespace");
+
+        assertThat(vector).hasSize(3);
+        assertThat(vector[0]).isCloseTo(0.6f, within(1e-6f));
+        assertThat(vector[1]).isCloseTo(0.8f, within(1e-6f));
+        assertThat(requests).hasSize(1);
+        assertThat(requests.get(0).path("model").asText()).isEqualTo("test-embed");
+        assertThat(requests.get(0).path("prompt").asText()).isEqualTo("what is a tablespace");
+    }
+
+    @Test
+    void returnsNullWhenOllamaFails() {
+        status = 500;
+        body = "{\"error\": \"model not found\"}";
+
+        assertThat(service.embed("query")).isNull();
+    }
+
+    @Test
+    void skipsTheCallWhenDisabled() {
+        ReflectionTestUtils.setField(service, "enabled", false);
+        body = "{\"embedding\": [1.0]}";
+
+        assertThat(service.embed("query")).isNull();
+        assertThat(requests).isEmpty();
+    }
+
+    @Test
+    void queryEmbeddingGivesUpAfterItsTimeout() {
+        ReflectionTestUtils.setField(service, "queryTimeoutMs", 200L);
+        ReflectionTestUtils.setField(service, "queryMaxConcurrent", 4);
+        hold = new CountDownLatch(1);
+        body = "{\"embedding\": [1.0]}";
+
+        long start = System.nanoTime();
+        assertThat(service.embedQuery("query")).isNull();
+        assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start)).isLessThan(5);
+    }
+
+    @Test
+    void queryEmbeddingFailsFastWhenTooManyAreInFlight() throws Exception {
+        ReflectionTestUtils.setField(service, "queryTimeoutMs", 10_000L);
+        ReflectionTestUtils.setField(service, "queryMaxConcurrent", 1);
+        hold = new CountDownLatch(1);
+        body = "{\"embedding\": [1.0]}";
+
+        CompletableFuture<float[]> first = CompletableFuture.supplyAsync(() -> service.embedQuery("first"));
+        while (requests.isEmpty()) {
+            Thread.sleep(10);
+        }
+        assertThat(service.embedQuery("second")).isNull();
+        assertThat(requests).hasSize(1);
+
+        hold.countDown();
+        assertThat(first.get(10, TimeUnit.SECONDS)).containsExactly(1.0f);
+    }
+
+    private void awaitHold() {
+        CountDownLatch latch = hold;
+        if (latch == null) return;
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.aichatbot.service;
+
+import com.aichatbot.config.AppExecutors;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamingOllamaServiceTest {
+
+    // Local stand-in for Ollama's /api/generate: the handler is set per test
+    private volatile Handler handler;
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private AppExecutors executors;
+    private StreamingOllamaService service;
+
+    interface Handler {
+        void handle(OutputStream out) throws Exception;
+    }
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.createContext("/api/generate", this::generate);
+        server.start();
+
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        OllamaService ollamaService = new OllamaService(httpClient, new ObjectMapper(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(ollamaService, "ollamaBaseUrl", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(ollamaService, "modelName", "test-model");
+        executors = new AppExecutors(new MockEnvironment(), new SimpleMeterRegistry());
+        service = new StreamingOllamaService(httpClient, ollamaService, executors);
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+        executors.shutdown();
+    }
+
+    @Test
+    void passesTokensOnBeforeTheGenerationFinishes() throws Exception {
+        CountDownLatch firstTokenSeen = new CountDownLatch(1);
+        handler = out -> {
+            line(out, "{\"response\":\"Hel\",\"done\":false}");
+            // Hold the rest back until the client has seen the first fragment
+            assertThat(firstTokenSeen.await(5, TimeUnit.SECONDS)).isTrue();
+            line(out, "{\"response\":\"lo\",\"done\":false}");
+            line(out, "{\"response\":\"\",\"done\":true,\"eval_count\":2,\"eval_duration\":1000}");
+        };
+
+        List<String> tokens = new CopyOnWriteArrayList<>();
+        List<String> readers = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> result = service.generate("hi", token -> {
+            tokens.add(token);
+            readers.add(Thread.currentThread().getName());
+            firstTokenSeen.countDown();
+        });
+
+        assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("Hello");
+        assertThat(tokens).containsExactly("Hel", "lo");
+        // Read on the named llm executor, not on the HttpClient's internal threads
+        assertThat(readers).allMatch(name -> name.startsWith("llm-"));
+    }
+
+    @Test
+    void cancellingClosesTheUpstreamConnection() throws Exception {
+        CountDownLatch upstreamClosed = new CountDownLatch(1);
+        handler = endlessGeneration(upstreamClosed);
+
+        CountDownLatch firstToken = new CountDownLatch(1);
+        CompletableFuture<String> result = service.generate("hi", token -> firstToken.countDown());
+        assertThat(firstToken.await(5, TimeUnit.SECONDS)).isTrue();
+
+        result.cancel(true);
+
+        assertThat(upstreamClosed.await(10, TimeUnit.SECONDS)).as("upstream connection closed").isTrue();
+    }
+
+    @Test
+    void failingTokenConsumerAbortsTheGeneration() throws Exception {
+        CountDownLatch upstreamClosed = new CountDownLatch(1);
+        handler = endlessGeneration(upstreamClosed);
+
+        // What the SSE endpoint does when the client has gone away
+        CompletableFuture<String> result = service.generate("hi", token -> {
+            throw new IllegalStateException("client disconnected");
+        });
+
+        assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        assertThat(upstreamClosed.await(10, TimeUnit.SECONDS)).as("upstream connection closed").isTrue();
+    }
+
+    // Keeps producing tokens until writing fails because the client closed the connection
+    private static Handler endlessGeneration(CountDownLatch upstreamClosed) {
+        return out -> {
+            try {
+                while (true) {
+                    line(out, "{\"response\":\"token \",\"done\":false}");
+                    Thread.sleep(20);
+                }
+            } catch (IOException e) {
+                upstreamClosed.countDown();
+            }
+        };
+    }
+
+    private void generate(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            handler.handle(out);
+        } catch (IOException e) {
+            // client went away
+        } catch (Exception e) {
+            throw new IOException(e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void line(OutputStream out, String json) throws IOException {
+        out.write((json + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}